@@ -1,27 +1,53 @@
 package io.akka.health;
 
+import akka.javasdk.client.ComponentClient;
 import akka.javasdk.http.HttpClientProvider;
+import akka.javasdk.timer.TimerScheduler;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.store.embedding.mongodb.MongoDbEmbeddingStore;
+import io.akka.health.agent.application.AnswerCache;
 import io.akka.health.agent.application.MedicalRecordRAG;
+import io.akka.health.agent.application.ModelRouter;
+import io.akka.health.agent.application.ToolExecutor;
+import io.akka.health.common.CachingEmbeddingModel;
 import io.akka.health.common.MongoDbUtils;
+import io.akka.health.common.OpenAiUtils;
+import io.akka.health.fitbit.FitbitCache;
 import io.akka.health.fitbit.FitbitClient;
+import io.akka.health.fitbit.FitbitRateLimiter;
+import io.akka.health.fitbit.application.FitbitSyncAction;
 import akka.javasdk.DependencyProvider;
 import akka.javasdk.ServiceSetup;
 import akka.javasdk.annotations.Setup;
 import com.mongodb.client.MongoClients;
+import com.typesafe.config.Config;
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+
 @Setup
 public class Bootstrap implements ServiceSetup {
 
   private final Logger logger = LoggerFactory.getLogger(getClass());
   private final MedicalRecordRAG medicalRecordRAG;
   private final FitbitClient fitbitClient;
+  private final ToolExecutor toolExecutor;
+  private final AnswerCache answerCache;
+  private final ModelRouter modelRouter = new ModelRouter();
   private final MongoDbEmbeddingStore embeddingStore;
+  private final CachingEmbeddingModel embeddingModel;
+  private final EmbeddingModel documentEmbeddingModel;
+  private final ComponentClient componentClient;
+  private final TimerScheduler timerScheduler;
+  private final Config config;
+
+  public Bootstrap(HttpClientProvider httpClientProvider, ComponentClient componentClient, TimerScheduler timerScheduler, Config config) {
+    this.componentClient = componentClient;
+    this.timerScheduler = timerScheduler;
+    this.config = config;
 
-  public Bootstrap(HttpClientProvider httpClientProvider) {
     String mongodbAtlasUri = System.getenv("MONGODB_ATLAS_URI");
     if (mongodbAtlasUri == null) {
       logger.error("MONGODB_ATLAS_URI environment variable is not set.");
@@ -47,8 +73,50 @@ public class Bootstrap implements ServiceSetup {
             "medicalrecord",
             "medicalrecord-index");
     this.embeddingStore = MongoDbUtils.mongoDbEmbeddingStore(mongoConfig);
-    this.medicalRecordRAG = new MedicalRecordRAG(mongoClient);
-    this.fitbitClient = new FitbitClient(httpClientProvider.httpClientFor("https://api.fitbit.com"));
+    // only query embeddings are cached, document segments are embedded once and would evict them
+    this.documentEmbeddingModel = OpenAiUtils.embeddingModel();
+    this.embeddingModel = OpenAiUtils.cachingEmbeddingModel(
+            documentEmbeddingModel,
+            config.getInt("health-agent.embedding-cache.max-entries"),
+            config.getDuration("health-agent.embedding-cache.ttl"));
+    this.medicalRecordRAG = new MedicalRecordRAG(
+            embeddingStore,
+            embeddingModel,
+            config.getInt("health-agent.medical-records.context-token-budget"));
+    var fitbitCache = new FitbitCache(
+            config.getInt("health-agent.fitbit.cache.max-entries"),
+            config.getDuration("health-agent.fitbit.cache.recent-ttl"),
+            config.getDuration("health-agent.fitbit.cache.past-ttl"));
+    var fitbitRateLimiter = new FitbitRateLimiter(config.getInt("health-agent.fitbit.rate-limit.requests-per-hour"));
+    var rateLimitSettings = new FitbitClient.RateLimitSettings(
+            config.getInt("health-agent.fitbit.rate-limit.max-retries"),
+            config.getDuration("health-agent.fitbit.rate-limit.max-backoff"),
+            config.getBoolean("health-agent.fitbit.rate-limit.serve-stale"));
+    this.fitbitClient = new FitbitClient(
+            httpClientProvider.httpClientFor("https://api.fitbit.com"),
+            fitbitCache,
+            fitbitRateLimiter,
+            rateLimitSettings);
+    this.toolExecutor = new ToolExecutor(
+            config.getInt("health-agent.tools.parallelism"),
+            config.getInt("health-agent.tools.queue-size"),
+            config.getDuration("health-agent.tools.timeout"));
+    this.answerCache = new AnswerCache(
+            embeddingModel,
+            config.getBoolean("health-agent.answer-cache.bypass"),
+            config.getDouble("health-agent.answer-cache.similarity-threshold"),
+            config.getInt("health-agent.answer-cache.max-entries-per-user"));
+  }
+
+  @Override
+  public void onStartup() {
+    if (config.getBoolean("health-agent.fitbit.sync.enabled")) {
+      // the sync action schedules its next run itself
+      timerScheduler.createSingleTimer(
+              FitbitSyncAction.TIMER_NAME,
+              Duration.ofSeconds(10),
+              componentClient.forTimedAction().method(FitbitSyncAction::sync).deferred());
+    }
   }
 
   @Override
@@ -60,6 +128,14 @@ public class Bootstrap implements ServiceSetup {
           return (T) embeddingStore;
         }
 
+        if (cls.equals(EmbeddingModel.class)) {
+          return (T) documentEmbeddingModel;
+        }
+
+        if (cls.equals(CachingEmbeddingModel.class)) {
+          return (T) embeddingModel;
+        }
+
         if (cls.equals(MedicalRecordRAG.class)) {
           return (T) medicalRecordRAG;
         }
@@ -67,6 +143,18 @@ public class Bootstrap implements ServiceSetup {
         if (cls.equals(FitbitClient.class)) {
             return (T) fitbitClient;
         }
+
+        if (cls.equals(ToolExecutor.class)) {
+          return (T) toolExecutor;
+        }
+
+        if (cls.equals(AnswerCache.class)) {
+          return (T) answerCache;
+        }
+
+        if (cls.equals(ModelRouter.class)) {
+          return (T) modelRouter;
+        }
         return null;
       }
     };
@@ -1,16 +1,31 @@
 package io.akka.health.agent.api;
 
+import akka.Done;
 import akka.http.javadsl.model.*;
 import akka.javasdk.client.ComponentClient;
+import akka.stream.javadsl.Source;
+import com.typesafe.config.Config;
+import io.akka.health.agent.application.AnswerCache;
+import io.akka.health.agent.application.ConversationLogEntity;
+import io.akka.health.agent.application.DataVersionEntity;
 import io.akka.health.agent.application.HealthAgent;
+import io.akka.health.agent.application.ModelRouter;
 import akka.javasdk.annotations.Acl;
 import akka.javasdk.annotations.http.HttpEndpoint;
 import akka.javasdk.annotations.http.Post;
 import akka.javasdk.http.HttpResponses;
+import io.akka.health.agent.domain.AgentSessionId;
+import io.akka.health.agent.domain.ConversationWindow;
 import io.akka.health.agent.domain.HealthAgentRequest;
+import io.akka.health.agent.domain.ModelTier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
 
 @Acl(allow = @Acl.Matcher(principal = Acl.Principal.ALL))
 @HttpEndpoint("/agent")
@@ -18,24 +33,126 @@ public class AgentEndpoint {
 
     private static final Logger log = LoggerFactory.getLogger(AgentEndpoint.class);
     private final ComponentClient componentClient;
+    private final AnswerCache answerCache;
+    private final ModelRouter modelRouter;
+    private final int maxWindowMessages;
 
     public record AskRequest(String userId, String sessionId, String question) {}
 
-    public AgentEndpoint(ComponentClient componentClient) {
+    public AgentEndpoint(ComponentClient componentClient, AnswerCache answerCache, ModelRouter modelRouter, Config config) {
         this.componentClient = componentClient;
+        this.answerCache = answerCache;
+        this.modelRouter = modelRouter;
+        this.maxWindowMessages = config.getInt("health-agent.memory.max-window-messages");
     }
 
     @Post("/ask")
     public HttpResponse ask(AskRequest request) {
         log.info("Request: {}", request);
-        var sessionId = request.userId + "-" + request.sessionId;
-        var response = componentClient
+        var sessionId = new AgentSessionId(request.userId, request.sessionId).toString();
+        var date = LocalDate.now();
+        var dataVersion = dataVersion(request.userId);
+        var cached = cachedAnswer(request, sessionId, date, dataVersion);
+        if (cached.isPresent()) {
+            return HttpResponses.ok(cached.get());
+        }
+
+        var tier = modelRouter.route(request.question);
+        var window = conversationWindow(sessionId);
+        var response = modelRouter.answer(tier, model -> askWithTier(request, sessionId, window, model));
+
+        log.info("Response: {}", response);
+        // only the answer that is sent is added to the session, a rejected fast answer is not
+        recordExchange(sessionId, request.question, response).toCompletableFuture().join();
+        answerCache.put(request.userId, request.question, date, dataVersion, response);
+        return HttpResponses.ok(response);
+    }
+
+    private String askWithTier(AskRequest request, String sessionId, ConversationWindow window, ModelTier tier) {
+        return componentClient
                 .forAgent()
                 .inSession(sessionId)
                 .method(HealthAgent::ask)
-                .invoke(new HealthAgentRequest(request.question, request.userId));
+                .invoke(new HealthAgentRequest(request.question, request.userId, tier, window));
+    }
 
-        log.info("Response: {}", response);
-        return HttpResponses.ok(response);
+    /**
+     * Streams the answer to the client as server-sent events, one event per token.
+     * <p>
+     * The question is routed like in {@link #ask}, but the answer is not escalated since the tokens of the
+     * fast tier have already been sent. The exchange is added to the session before the stream completes, so a
+     * follow-up question sent after the last event sees it.
+     */
+    @Post("/ask/stream")
+    public HttpResponse askStream(AskRequest request) {
+        log.info("Streaming request: {}", request);
+        var sessionId = new AgentSessionId(request.userId, request.sessionId).toString();
+        var date = LocalDate.now();
+        var dataVersion = dataVersion(request.userId);
+        var cached = cachedAnswer(request, sessionId, date, dataVersion);
+        if (cached.isPresent()) {
+            return HttpResponses.serverSentEvents(Source.single(cached.get()));
+        }
+
+        var tier = modelRouter.route(request.question);
+        long start = System.nanoTime();
+        var answer = new StringBuilder();
+        var tokens = componentClient
+                .forAgent()
+                .inSession(sessionId)
+                .tokenStream(HealthAgent::askStream)
+                .source(new HealthAgentRequest(request.question, request.userId, tier, conversationWindow(sessionId)))
+                .map(token -> {
+                    answer.append(token);
+                    return token;
+                })
+                .watchTermination((mat, done) -> done.thenRun(() ->
+                        modelRouter.recordLatency(tier, Duration.ofNanos(System.nanoTime() - start).toMillis())))
+                // only runs when the answer completed successfully, a failed answer is neither recorded nor cached
+                .concat(Source.lazyCompletionStageSource(() ->
+                        recordExchange(sessionId, request.question, answer.toString()).thenApply(done -> {
+                            answerCache.put(request.userId, request.question, date, dataVersion, answer.toString());
+                            return Source.<String>empty();
+                        })));
+
+        return HttpResponses.serverSentEvents(tokens);
+    }
+
+    /**
+     * The earlier conversation the agent is given, read here so that the agent itself does not wait on the log.
+     */
+    private ConversationWindow conversationWindow(String sessionId) {
+        return componentClient.forEventSourcedEntity(sessionId)
+                .method(ConversationLogEntity::getWindow)
+                .invoke(maxWindowMessages);
+    }
+
+    private long dataVersion(String userId) {
+        if (answerCache.isBypassed())
+            return 0;
+        return componentClient.forKeyValueEntity(userId)
+                .method(DataVersionEntity::getVersion)
+                .invoke();
+    }
+
+    /**
+     * A cached answer to the same question, added to the session like any other answer.
+     */
+    private Optional<String> cachedAnswer(AskRequest request, String sessionId, LocalDate date, long dataVersion) {
+        var cached = answerCache.get(request.userId, request.question, date, dataVersion);
+        cached.ifPresent(answer -> {
+            log.info("Answering from cache: {}", answer);
+            recordExchange(sessionId, request.question, answer).toCompletableFuture().join();
+        });
+        return cached;
+    }
+
+    /**
+     * Adds a question and its answer to the conversation log, which the agent reads its earlier conversation from.
+     */
+    private CompletionStage<Done> recordExchange(String sessionId, String question, String answer) {
+        return componentClient.forEventSourcedEntity(sessionId)
+                .method(ConversationLogEntity::addExchange)
+                .invokeAsync(new ConversationLogEntity.Exchange(question, answer, System.currentTimeMillis()));
     }
 }
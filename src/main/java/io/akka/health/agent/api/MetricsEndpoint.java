@@ -0,0 +1,43 @@
+package io.akka.health.agent.api;
+
+import akka.javasdk.annotations.Acl;
+import akka.javasdk.annotations.http.Get;
+import akka.javasdk.annotations.http.HttpEndpoint;
+import io.akka.health.agent.application.AnswerCache;
+import io.akka.health.agent.application.ModelRouter;
+import io.akka.health.common.CachingEmbeddingModel;
+import io.akka.health.fitbit.FitbitCache;
+import io.akka.health.fitbit.FitbitClient;
+
+/**
+ * Exposes runtime statistics of the in-process caches and the model routing of this service instance.
+ */
+@Acl(allow = @Acl.Matcher(principal = Acl.Principal.ALL))
+@HttpEndpoint("/metrics")
+public class MetricsEndpoint {
+
+  public record Metrics(AnswerCache.Stats answerCache,
+                        CachingEmbeddingModel.Stats embeddingCache,
+                        FitbitCache.Stats fitbitCache,
+                        long fitbitCoalescedRequests,
+                        ModelRouter.Stats modelRouting) {}
+
+  private final AnswerCache answerCache;
+  private final CachingEmbeddingModel embeddingModel;
+  private final FitbitClient fitbitClient;
+  private final ModelRouter modelRouter;
+
+  public MetricsEndpoint(AnswerCache answerCache, CachingEmbeddingModel embeddingModel, FitbitClient fitbitClient,
+                         ModelRouter modelRouter) {
+    this.answerCache = answerCache;
+    this.embeddingModel = embeddingModel;
+    this.fitbitClient = fitbitClient;
+    this.modelRouter = modelRouter;
+  }
+
+  @Get
+  public Metrics metrics() {
+    return new Metrics(answerCache.stats(), embeddingModel.stats(), fitbitClient.cacheStats(), fitbitClient.coalescedRequests(),
+        modelRouter.stats());
+  }
+}
@@ -4,15 +4,20 @@ import akka.http.javadsl.model.HttpResponse;
 import akka.javasdk.annotations.Acl;
 import akka.javasdk.annotations.http.Get;
 import akka.javasdk.client.ComponentClient;
+import akka.javasdk.http.AbstractHttpEndpoint;
 import akka.javasdk.http.HttpResponses;
 import io.akka.health.agent.application.ConversationHistoryView;
+import io.akka.health.agent.application.ConversationLogEntity;
+import io.akka.health.agent.domain.AgentSessionId;
 
 /**
  * This Http endpoint return the static UI page located under src/main/resources/static-resources/
  */
 @akka.javasdk.annotations.http.HttpEndpoint
 @Acl(allow = @Acl.Matcher(principal = Acl.Principal.ALL))
-public class UiEndpoint {
+public class UiEndpoint extends AbstractHttpEndpoint {
+
+  private static final int DEFAULT_MESSAGES_LIMIT = 50;
 
   private final ComponentClient componentClient;
 
@@ -31,4 +36,46 @@ public class UiEndpoint {
             .method(ConversationHistoryView::getSessionsByUser)
             .invoke(userId);
   }
+
+  /**
+   * Server-sent events with the summary of each session of the user that gets a new message after the
+   * {@code since} query parameter (epoch millis, default now). Clients apply these deltas to the session list
+   * they loaded once, instead of reloading the whole history.
+   */
+  @Get("/users/{userId}/sessions/updates")
+  public HttpResponse getSessionUpdates(String userId) {
+    long since;
+    try {
+      since = requestContext().queryParams().getString("since").map(Long::parseLong).orElse(System.currentTimeMillis());
+    } catch (NumberFormatException e) {
+      return HttpResponses.badRequest("since must be epoch millis");
+    }
+    var updates = componentClient.forView()
+            .stream(ConversationHistoryView::streamSessionUpdates)
+            .source(new ConversationHistoryView.SessionsSince(userId, since));
+    return HttpResponses.serverSentEvents(updates);
+  }
+
+  /**
+   * A page of the messages of a session, oldest first. Without a {@code before} query parameter the most recent
+   * messages are returned; pass the {@code nextCursor} of a page as {@code before} to get the older messages.
+   * With an {@code after} query parameter, the messages following that seq are returned.
+   */
+  @Get("/users/{userId}/sessions/{sessionId}/messages")
+  public HttpResponse getMessages(String userId, String sessionId) {
+    var params = requestContext().queryParams();
+    ConversationLogEntity.MessagesQuery query;
+    try {
+      query = new ConversationLogEntity.MessagesQuery(
+              params.getString("before").map(Long::parseLong).orElse(null),
+              params.getString("after").map(Long::parseLong).orElse(null),
+              params.getInteger("limit").orElse(DEFAULT_MESSAGES_LIMIT));
+    } catch (NumberFormatException e) {
+      return HttpResponses.badRequest("before, after and limit must be integers");
+    }
+    var page = componentClient.forEventSourcedEntity(new AgentSessionId(userId, sessionId).toString())
+            .method(ConversationLogEntity::getMessages)
+            .invoke(query);
+    return HttpResponses.ok(page);
+  }
 }
@@ -0,0 +1,96 @@
+package io.akka.health.agent.application;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.CosineSimilarity;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user cache of agent answers, matched by the similarity of the question embeddings.
+ * <p>
+ * An answer is only reused on the same day, since questions like "yesterday" depend on the date, and for the
+ * same {@link DataVersionEntity} version, so new health data of the user invalidates the cached answers.
+ * At most {@code maxEntriesPerUser} answers are kept per user, the oldest are evicted first.
+ */
+public class AnswerCache {
+
+    public record Stats(long hits, long misses, int users) {}
+
+    private record Entry(Embedding question, LocalDate date, long dataVersion, String answer) {}
+
+    private final EmbeddingModel embeddingModel;
+    private final boolean bypass;
+    private final double similarityThreshold;
+    private final int maxEntriesPerUser;
+    private final Map<String, Deque<Entry>> entries = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param bypass              when true, nothing is cached and every question goes to the agent
+     * @param similarityThreshold minimum cosine similarity of two questions to reuse an answer
+     */
+    public AnswerCache(EmbeddingModel embeddingModel, boolean bypass, double similarityThreshold, int maxEntriesPerUser) {
+        this.embeddingModel = embeddingModel;
+        this.bypass = bypass;
+        this.similarityThreshold = similarityThreshold;
+        this.maxEntriesPerUser = maxEntriesPerUser;
+    }
+
+    public boolean isBypassed() {
+        return bypass;
+    }
+
+    public Optional<String> get(String userId, String question, LocalDate date, long dataVersion) {
+        if (bypass)
+            return Optional.empty();
+
+        var embedding = embeddingModel.embed(question).content();
+        Optional<String> answer;
+        synchronized (entries) {
+            var userEntries = entries.get(userId);
+            if (userEntries == null) {
+                answer = Optional.empty();
+            } else {
+                // answers of another day or older data will never match again
+                userEntries.removeIf(entry -> !entry.date().equals(date) || entry.dataVersion() != dataVersion);
+                if (userEntries.isEmpty())
+                    entries.remove(userId);
+                answer = userEntries.stream()
+                        .filter(entry -> CosineSimilarity.between(entry.question(), embedding) >= similarityThreshold)
+                        .map(Entry::answer)
+                        .findFirst();
+            }
+        }
+        (answer.isPresent() ? hits : misses).incrementAndGet();
+        return answer;
+    }
+
+    public void put(String userId, String question, LocalDate date, long dataVersion, String answer) {
+        if (bypass)
+            return;
+
+        var embedding = embeddingModel.embed(question).content();
+        synchronized (entries) {
+            var userEntries = entries.computeIfAbsent(userId, __ -> new ArrayDeque<>());
+            userEntries.addFirst(new Entry(embedding, date, dataVersion, answer));
+            while (userEntries.size() > maxEntriesPerUser) {
+                userEntries.removeLast();
+            }
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.get(), misses.get(), entries.size());
+        }
+    }
+}
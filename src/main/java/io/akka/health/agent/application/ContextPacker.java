@@ -0,0 +1,129 @@
+package io.akka.health.agent.application;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import io.akka.health.common.TokenEstimates;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs retrieved medical record segments into a token budget.
+ * <p>
+ * Segments are split from the records with an overlap, so neighbouring segments of the same record repeat
+ * text. The packer drops duplicate segments, merges neighbouring segments of a record into one passage
+ * without the overlapping text, and then adds the passages by descending score until the budget is used. The
+ * passage that does not fit into what is left of the budget is cut to it.
+ */
+public class ContextPacker {
+
+    private record Chunk(String record, int index, String text, double score) {}
+
+    private final int tokenBudget;
+
+    public ContextPacker(int tokenBudget) {
+        this.tokenBudget = tokenBudget;
+    }
+
+    public List<Content> pack(List<Content> contents) {
+        // group the segments per record, dropping segments retrieved twice
+        Map<String, Map<Integer, Chunk>> byRecord = new LinkedHashMap<>();
+        for (Content content : contents) {
+            var chunk = toChunk(content);
+            byRecord.computeIfAbsent(chunk.record(), __ -> new LinkedHashMap<>())
+                    .merge(chunk.index(), chunk, (a, b) -> a.score() >= b.score() ? a : b);
+        }
+
+        List<Chunk> passages = new ArrayList<>();
+        for (Map<Integer, Chunk> chunks : byRecord.values()) {
+            passages.addAll(mergeNeighbours(chunks.values().stream().sorted(Comparator.comparingInt(Chunk::index)).toList()));
+        }
+        passages.sort(Comparator.comparingDouble(Chunk::score).reversed());
+
+        List<Content> packed = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        int budget = TokenEstimates.chars(tokenBudget);
+        for (Chunk passage : passages) {
+            if (texts.stream().anyMatch(text -> text.contains(passage.text()))) {
+                // the same text was ingested twice, e.g. a record that was indexed again
+                continue;
+            }
+            // a passage larger than what is left is cut rather than dropped, a long merged passage is often the best one
+            String text = truncate(passage.text(), budget);
+            if (text.isEmpty()) {
+                break;
+            }
+            budget -= text.length();
+            texts.add(text);
+            packed.add(Content.from(TextSegment.from(text)));
+        }
+        return packed;
+    }
+
+    /**
+     * Cuts the text to at most maxChars characters, at the last whitespace so no word is split.
+     */
+    static String truncate(String text, int maxChars) {
+        if (text.length() <= maxChars) {
+            return text;
+        }
+        int end = maxChars;
+        while (end > 0 && !Character.isWhitespace(text.charAt(end))) {
+            end--;
+        }
+        return text.substring(0, end).strip();
+    }
+
+    private static Chunk toChunk(Content content) {
+        TextSegment segment = content.textSegment();
+        Metadata metadata = segment.metadata();
+        String record = metadata.getString("recordId") != null
+                ? metadata.getString("recordId")
+                // segments indexed before records had an id
+                : metadata.getString("patientId") + "|" + metadata.getString("reasonForVisit") + "|" + metadata.getString("diagnosis");
+        // the splitter numbers the segments of a document, the store may return the number as a string or a number
+        Object index = metadata.toMap().get("index");
+        Object score = content.metadata().get(ContentMetadata.SCORE);
+        return new Chunk(
+                record,
+                index != null ? Integer.parseInt(index.toString()) : -1,
+                segment.text(),
+                score instanceof Number number ? number.doubleValue() : 0);
+    }
+
+    /**
+     * Merges runs of consecutive segments of one record into single passages, scored by their best segment.
+     */
+    private static List<Chunk> mergeNeighbours(List<Chunk> sorted) {
+        List<Chunk> merged = new ArrayList<>();
+        Chunk current = null;
+        for (Chunk chunk : sorted) {
+            if (current != null && current.index() >= 0 && chunk.index() == current.index() + 1) {
+                current = new Chunk(
+                        current.record(),
+                        chunk.index(),
+                        concatWithoutOverlap(current.text(), chunk.text()),
+                        Math.max(current.score(), chunk.score()));
+            } else {
+                if (current != null) merged.add(current);
+                current = chunk;
+            }
+        }
+        if (current != null) merged.add(current);
+        return merged;
+    }
+
+    private static String concatWithoutOverlap(String first, String second) {
+        for (int overlap = Math.min(first.length(), second.length()); overlap > 0; overlap--) {
+            if (first.endsWith(second.substring(0, overlap))) {
+                return first + second.substring(overlap);
+            }
+        }
+        return first + " " + second;
+    }
+}
@@ -0,0 +1,77 @@
+package io.akka.health.agent.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.consumer.Consumer;
+import com.typesafe.config.Config;
+import io.akka.health.common.TokenEstimates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+
+/**
+ * Compacts a session after each answer when the messages before the recent ones exceed
+ * {@code health-agent.memory.compaction-threshold-tokens}, or when more messages than
+ * {@code health-agent.memory.max-window-messages} are not summarized yet: they are folded into the rolling summary
+ * of the session.
+ * <p>
+ * This follows the conversation log instead of appending to it, so neither the answer nor the transcript waits
+ * for the summarizer. A redelivered event at most summarizes again, the entity keeps the summary that covers
+ * the most messages.
+ */
+@ComponentId("conversation-compaction-consumer")
+@Consume.FromEventSourcedEntity(ConversationLogEntity.class)
+public class ConversationCompactionConsumer extends Consumer {
+
+  private final static Logger logger = LoggerFactory.getLogger(ConversationCompactionConsumer.class);
+
+  private final ComponentClient componentClient;
+  private final int recentMessages;
+  private final int compactionThresholdTokens;
+  private final int maxWindowMessages;
+
+  public ConversationCompactionConsumer(ComponentClient componentClient, Config config) {
+    this.componentClient = componentClient;
+    this.recentMessages = config.getInt("health-agent.memory.recent-messages");
+    this.compactionThresholdTokens = config.getInt("health-agent.memory.compaction-threshold-tokens");
+    this.maxWindowMessages = config.getInt("health-agent.memory.max-window-messages");
+  }
+
+  public Effect onEvent(ConversationLogEntity.Event event) {
+    return switch (event) {
+      case ConversationLogEntity.Event.MessageAdded added when added.origin().equals("ai") -> {
+        compactIfNeeded();
+        yield effects().done();
+      }
+      default -> effects().ignore();
+    };
+  }
+
+  private void compactIfNeeded() {
+    var candidate = componentClient.forEventSourcedEntity(agentSessionId())
+        .method(ConversationLogEntity::getCompactionCandidate)
+        .invoke(recentMessages);
+
+    long tokens = TokenEstimates.tokens(candidate.messages().stream().mapToLong(m -> m.message().length()).sum());
+    if (candidate.messages().isEmpty() || (tokens < compactionThresholdTokens && candidate.unsummarized() <= maxWindowMessages)) {
+      return;
+    }
+
+    logger.info("Compacting {} messages (~{} tokens) of session {}", candidate.messages().size(), tokens, agentSessionId());
+    var summary = componentClient.forAgent()
+        .inSession(UUID.randomUUID().toString())
+        .method(SummarizerAgent::summarize)
+        .invoke(new SummarizerAgent.SummaryRequest(candidate.summary(), candidate.messages()));
+
+    var upTo = candidate.messages().get(candidate.messages().size() - 1).seq() + 1;
+    componentClient.forEventSourcedEntity(agentSessionId())
+        .method(ConversationLogEntity::updateSummary)
+        .invoke(new ConversationLogEntity.Event.SummaryUpdated(summary, upTo));
+  }
+
+  private String agentSessionId() {
+    return messageContext().eventSubject().get();
+  }
+}
@@ -1,88 +1,88 @@
-
 package io.akka.health.agent.application;
 
-import akka.javasdk.agent.SessionMemoryEntity;
 import akka.javasdk.annotations.ComponentId;
 import akka.javasdk.annotations.Consume;
 import akka.javasdk.annotations.Query;
+import akka.javasdk.annotations.Table;
 import akka.javasdk.view.TableUpdater;
 import akka.javasdk.view.View;
+import io.akka.health.agent.domain.AgentSessionId;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 
 // tag::top[]
-@ComponentId("view_chat_log")
+/**
+ * A summary per conversation session, small enough to list all sessions of a user at once.
+ * The messages of a session are read page by page from its {@link ConversationLogEntity}.
+ */
+@ComponentId("view_chat_sessions")
 public class ConversationHistoryView extends View {
 
-  public record ConversationHistory(List<Session> sessions) {
-  }
+  private static final int PREVIEW_LENGTH = 80;
 
-  public record Message(String message,
-      String origin, long timestamp) { // <1>
+  public record ConversationHistory(List<SessionSummary> sessions) {
   }
 
-  public record Session(String userId,
-      String sessionId, long creationDate, List<Message> messages) {
-    public Session add(Message message) {
-      messages.add(message);
-      return this;
+  /**
+   * @param preview the beginning of the first user message
+   */
+  public record SessionSummary(String userId,
+      String sessionId, long creationDate, long lastMessageAt, int messageCount, String preview) { // <1>
+
+    public SessionSummary add(String message, String origin, long timestamp) {
+      var newPreview = preview == null && origin.equals("user") ? preview(message) : preview;
+      return new SessionSummary(userId, sessionId, creationDate, timestamp, messageCount + 1, newPreview);
+    }
+
+    private static String preview(String message) {
+      return message.length() > PREVIEW_LENGTH ? message.substring(0, PREVIEW_LENGTH) + "..." : message;
     }
   }
 
-  @Query("SELECT collect(*) as sessions FROM view_chat_log " +
+  @Query("SELECT collect(*) as sessions FROM view_chat_sessions " +
       "WHERE userId = :userId ORDER by creationDate DESC")
   public QueryEffect<ConversationHistory> getSessionsByUser(String userId) { // <2>
     return queryResult();
   }
 
-  @Consume.FromEventSourcedEntity(SessionMemoryEntity.class)
-  public static class ChatMessageUpdater extends TableUpdater<Session> {
-
-    public Effect<Session> onEvent(SessionMemoryEntity.Event event) {
-      return switch (event) {
-        case SessionMemoryEntity.Event.AiMessageAdded added -> aiMessage(added);
-        case SessionMemoryEntity.Event.UserMessageAdded added -> userMessage(added);
-        default -> effects().ignore();
-      };
-    }
-
-    private Effect<Session> aiMessage(SessionMemoryEntity.Event.AiMessageAdded added) {
-      var timestamp = System.currentTimeMillis();
-      Message newMessage = new Message(added.message(), "ai", timestamp);
-      var rowState = rowStateOrNew(userId(), sessionId());
-      return effects().updateRow(rowState.add(newMessage));
-    }
+  public record SessionsSince(String userId, long since) {
+  }
 
-    private Effect<Session> userMessage(SessionMemoryEntity.Event.UserMessageAdded added) {
-      var timestamp = System.currentTimeMillis();
-      Message newMessage = new Message(added.message(), "user", timestamp);
-      var rowState = rowStateOrNew(userId(), sessionId());
-      return effects().updateRow(rowState.add(newMessage));
-    }
+  /**
+   * The sessions of a user with messages after {@code since}, followed by every session that changes afterwards.
+   */
+  @Query(value = "SELECT * FROM view_chat_sessions " +
+      "WHERE userId = :userId AND lastMessageAt > :since", streamUpdates = true)
+  public QueryStreamEffect<SessionSummary> streamSessionUpdates(SessionsSince request) {
+    return queryStreamResult();
+  }
 
-    private String userId() {
-      var agentSessionId = updateContext().eventSubject().get();
-      int i = agentSessionId.indexOf("-");
-      return agentSessionId.substring(0, i);
-    }
+  @Table("view_chat_sessions")
+  @Consume.FromEventSourcedEntity(ConversationLogEntity.class)
+  public static class SessionSummaryUpdater extends TableUpdater<SessionSummary> {
 
-    private String sessionId() {
-      var agentSessionId = updateContext().eventSubject().get();
-      int i = agentSessionId.indexOf("-");
-      return agentSessionId.substring(i+1);
+    public Effect<SessionSummary> onEvent(ConversationLogEntity.Event event) {
+      return switch (event) {
+        case ConversationLogEntity.Event.MessageAdded added ->
+            effects().updateRow(rowStateOrNew().add(added.message(), added.origin(), added.timestamp()));
+        case ConversationLogEntity.Event.SummaryUpdated updated -> effects().ignore();
+      };
     }
 
-    private Session rowStateOrNew(String userId, String sessionId) {
+    private SessionSummary rowStateOrNew() {
       if (rowState() != null)
         return rowState();
-      else
-        return new Session(
-            userId,
-            sessionId,
+      else {
+        var id = AgentSessionId.parse(updateContext().eventSubject().get());
+        return new SessionSummary(
+            id.userId(),
+            id.sessionId(),
             Instant.now().toEpochMilli(),
-            new ArrayList<>());
+            0,
+            0,
+            null);
+      }
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package io.akka.health.agent.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.eventsourcedentity.EventSourcedEntity;
+import io.akka.health.agent.domain.ConversationWindow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The transcript of an agent session, keyed by the agent session id. The state keeps the most recent messages,
+ * the event journal all of them.
+ * <p>
+ * The endpoint appends each question and its answer here before it replies, so the next question of the
+ * session always sees them. The transcript shown in the UI is read from here page by page.
+ * <p>
+ * It also holds the rolling summary of the older messages. The agent is given the summary and the messages after
+ * it, see {@link #getWindow(int)}, so what the agent sees and what has been summarized always meet.
+ */
+@ComponentId("conversation-log")
+public class ConversationLogEntity extends EventSourcedEntity<ConversationLogEntity.State, ConversationLogEntity.Event> {
+
+  /**
+   * @param seq the position of the message in the session, starting at 0
+   */
+  public record Message(long seq, String message, String origin, long timestamp) {}
+
+  /**
+   * @param messages       the most recent messages, at most {@value #MAX_RETAINED_MESSAGES}, oldest first. The list
+   *                       is immutable, adding a message copies it.
+   * @param summary        the summary of the messages before {@code summarizedUpTo}, null if there is none
+   * @param summarizedUpTo the seq of the first message not covered by the summary
+   */
+  public record State(List<Message> messages, String summary, long summarizedUpTo) {
+
+    long firstSeq() {
+      return messages.isEmpty() ? 0 : messages.getFirst().seq();
+    }
+
+    long nextSeq() {
+      return messages.isEmpty() ? 0 : messages.getLast().seq() + 1;
+    }
+
+    /**
+     * The messages from seq {@code from} up to seq {@code to} (exclusive), limited to the retained ones.
+     */
+    List<Message> range(long from, long to) {
+      int fromIndex = (int) (Math.clamp(from, firstSeq(), nextSeq()) - firstSeq());
+      int toIndex = (int) (Math.clamp(to, firstSeq(), nextSeq()) - firstSeq());
+      return messages.subList(fromIndex, Math.max(fromIndex, toIndex));
+    }
+  }
+
+  /**
+   * @param summary      the current summary, null if there is none
+   * @param messages     the messages after the summary that are not among the {@code keepRecent} most recent ones
+   * @param unsummarized the number of retained messages after the summary, including the most recent ones
+   */
+  public record CompactionCandidate(String summary, List<Message> messages, int unsummarized) {}
+
+  /**
+   * A question and its answer, added together.
+   */
+  public record Exchange(String question, String answer, long timestamp) {}
+
+  /**
+   * @param before only messages with a lower seq, null for the most recent messages
+   * @param after  only messages with a higher seq, oldest first, null to page backwards with {@code before}
+   * @param limit  maximum number of messages to return
+   */
+  public record MessagesQuery(Long before, Long after, int limit) {}
+
+  /**
+   * @param messages   the messages of the page, oldest first
+   * @param nextCursor the {@code before} cursor of the page with older messages, null if there is none or the
+   *                   page was requested with {@code after}
+   */
+  public record MessagesPage(List<Message> messages, Long nextCursor) {}
+
+  public sealed interface Event {
+    record MessageAdded(String message, String origin, long timestamp) implements Event {}
+
+    /**
+     * @param upTo the seq of the first message not covered by the summary
+     */
+    record SummaryUpdated(String summary, long upTo) implements Event {}
+  }
+
+  private static final int MAX_PAGE_SIZE = 100;
+  // older messages are only kept in the event journal, well above the window the agent is given
+  static final int MAX_RETAINED_MESSAGES = 1000;
+
+  @Override
+  public State emptyState() {
+    return new State(List.of(), null, 0);
+  }
+
+  public Effect<Done> addMessage(Event.MessageAdded message) {
+    return effects()
+        .persist(message)
+        .thenReply(newState -> Done.getInstance());
+  }
+
+  public Effect<Done> addExchange(Exchange exchange) {
+    return effects()
+        .persistAll(List.<Event>of(
+            new Event.MessageAdded(exchange.question(), "user", exchange.timestamp()),
+            new Event.MessageAdded(exchange.answer(), "ai", exchange.timestamp())))
+        .thenReply(newState -> Done.getInstance());
+  }
+
+  public Effect<Done> updateSummary(Event.SummaryUpdated summary) {
+    if (summary.upTo() <= currentState().summarizedUpTo()) {
+      // a summary of the same or more messages has been stored already
+      return effects().reply(Done.getInstance());
+    }
+    return effects()
+        .persist(summary)
+        .thenReply(newState -> Done.getInstance());
+  }
+
+  /**
+   * The summary and the messages after it, at most {@code maxMessages} of them. Compaction keeps the messages after
+   * the summary below that limit, so normally no message is outside both; until a pending compaction completes,
+   * the oldest messages after the summary are left out.
+   */
+  public ReadOnlyEffect<ConversationWindow> getWindow(int maxMessages) {
+    var state = currentState();
+    var turns = state.range(Math.max(state.summarizedUpTo(), state.nextSeq() - maxMessages), state.nextSeq()).stream()
+        .map(m -> new ConversationWindow.Turn(m.origin(), m.message()))
+        .toList();
+    return effects().reply(new ConversationWindow(state.summary(), turns));
+  }
+
+  public ReadOnlyEffect<CompactionCandidate> getCompactionCandidate(int keepRecent) {
+    var state = currentState();
+    var unsummarized = state.range(state.summarizedUpTo(), state.nextSeq());
+    var candidate = state.range(state.summarizedUpTo(), state.nextSeq() - keepRecent);
+    return effects().reply(new CompactionCandidate(state.summary(), candidate, unsummarized.size()));
+  }
+
+  /**
+   * A page of the retained messages, see {@link #MAX_RETAINED_MESSAGES}.
+   */
+  public ReadOnlyEffect<MessagesPage> getMessages(MessagesQuery query) {
+    var state = currentState();
+    int limit = Math.max(0, Math.min(query.limit(), MAX_PAGE_SIZE));
+    if (query.after() != null) {
+      long from = Math.max(query.after() + 1, state.firstSeq());
+      return effects().reply(new MessagesPage(state.range(from, from + limit), null));
+    }
+
+    long to = query.before() == null ? state.nextSeq() : Math.min(query.before(), state.nextSeq());
+    long from = Math.max(state.firstSeq(), to - limit);
+    var nextCursor = from > state.firstSeq() ? (Long) from : null;
+    return effects().reply(new MessagesPage(state.range(from, to), nextCursor));
+  }
+
+  @Override
+  public State applyEvent(Event event) {
+    return switch (event) {
+      case Event.MessageAdded added -> {
+        var state = currentState();
+        var messages = new ArrayList<>(state.messages());
+        messages.add(new Message(state.nextSeq(), added.message(), added.origin(), added.timestamp()));
+        if (messages.size() > MAX_RETAINED_MESSAGES) {
+          messages.subList(0, messages.size() - MAX_RETAINED_MESSAGES).clear();
+        }
+        yield new State(List.copyOf(messages), state.summary(), state.summarizedUpTo());
+      }
+      case Event.SummaryUpdated updated ->
+          new State(currentState().messages(), updated.summary(), updated.upTo());
+    };
+  }
+}
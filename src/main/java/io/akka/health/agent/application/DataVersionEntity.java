@@ -0,0 +1,55 @@
+package io.akka.health.agent.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.keyvalueentity.KeyValueEntity;
+
+/**
+ * A version number per user that changes whenever new health data of the user arrives: sensor readings,
+ * synced Fitbit days or medical records. Cached answers are only valid for the version they were computed at.
+ * <p>
+ * Synced days and medical records are rare and change the version right away. Sensor readings arrive
+ * continuously, so they only move the version to the time window they arrived in; answers cached within a
+ * window may miss the readings of the rest of that window.
+ */
+@ComponentId("data-version")
+public class DataVersionEntity extends KeyValueEntity<DataVersionEntity.State> {
+
+  /**
+   * @param changes      the number of synced days and medical records
+   * @param sensorWindow the latest time window, counted from the epoch, in which sensor readings arrived
+   */
+  public record State(long changes, long sensorWindow) {
+
+    /**
+     * Both parts only grow, so their sum changes whenever either does.
+     */
+    public long version() {
+      return changes + sensorWindow;
+    }
+  }
+
+  @Override
+  public State emptyState() {
+    return new State(0, 0);
+  }
+
+  public Effect<Done> bump() {
+    return effects()
+        .updateState(new State(currentState().changes() + 1, currentState().sensorWindow()))
+        .thenReply(Done.getInstance());
+  }
+
+  public Effect<Done> advanceSensorWindow(long window) {
+    if (window <= currentState().sensorWindow()) {
+      return effects().reply(Done.getInstance());
+    }
+    return effects()
+        .updateState(new State(currentState().changes(), window))
+        .thenReply(Done.getInstance());
+  }
+
+  public ReadOnlyEffect<Long> getVersion() {
+    return effects().reply(currentState().version());
+  }
+}
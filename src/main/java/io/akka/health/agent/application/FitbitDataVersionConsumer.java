@@ -0,0 +1,32 @@
+package io.akka.health.agent.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.consumer.Consumer;
+import io.akka.health.fitbit.application.FitbitDayEntity;
+
+/**
+ * Bumps the {@link DataVersionEntity} of a user when a synced Fitbit day has changed.
+ */
+@ComponentId("fitbit-data-version-consumer")
+@Consume.FromEventSourcedEntity(FitbitDayEntity.class)
+public class FitbitDataVersionConsumer extends Consumer {
+
+  private final ComponentClient componentClient;
+
+  public FitbitDataVersionConsumer(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  public Effect onEvent(FitbitDayEntity.Event event) {
+    return switch (event) {
+      case FitbitDayEntity.Event.DaySynced synced -> {
+        componentClient.forKeyValueEntity(synced.day().userId())
+            .method(DataVersionEntity::bump)
+            .invoke();
+        yield effects().done();
+      }
+    };
+  }
+}
@@ -1,6 +1,8 @@
 package io.akka.health.agent.application;
 
+import akka.javasdk.client.ComponentClient;
 import io.akka.health.fitbit.FitbitClient;
+import io.akka.health.fitbit.application.FitbitDayView;
 import io.akka.health.fitbit.domain.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,158 +10,250 @@ import org.slf4j.LoggerFactory;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Fitbit metrics for the agent. Past days are read from the data synced into {@link FitbitDayView},
+ * today and days that have not been synced yet are fetched from the Fitbit API.
+ * <p>
+ * The methods block until the metric is available: they back the agent's function tools, which return plain
+ * values, and the single-day ones also run on the {@link ToolExecutor} pool for {@link #getDailyMetrics}. Only
+ * the date ranges fan out over the async client, so a range waits once instead of once per day.
+ */
 public class FitbitTool {
 
+    // maximum page size supported by the Fitbit activity log list
+    private static final int ACTIVITY_LOG_PAGE_SIZE = 100;
+
     private final FitbitClient fitbitClient;
+    private final ComponentClient componentClient;
+    private final int parallelism;
+    private final ToolExecutor toolExecutor;
     private final static Logger logger = LoggerFactory.getLogger(FitbitTool.class);
 
-    public FitbitTool(FitbitClient fitbitClient) {
+    /**
+     * @param parallelism maximum number of concurrent Fitbit requests when fanning out over a date range
+     */
+    public FitbitTool(FitbitClient fitbitClient, ComponentClient componentClient, int parallelism, ToolExecutor toolExecutor) {
         this.fitbitClient = fitbitClient;
+        this.componentClient = componentClient;
+        this.parallelism = parallelism;
+        this.toolExecutor = toolExecutor;
     }
 
-    public Integer restingHeartRate(LocalDate date) {
-        logger.info("Getting resting heart rate for date {}", date);
+    /**
+     * Gets several metrics of one day at once. The metrics are looked up concurrently and returned in the
+     * requested order; a metric that is unknown, fails or times out carries an error instead of a value.
+     */
+    public List<ToolExecutor.Result<Object>> getDailyMetrics(String userId, LocalDate date, List<String> metrics) {
+        logger.info("Getting metrics {} for date {}", metrics, date);
+        List<ToolExecutor.Call<Object>> calls = metrics.stream()
+                .map(metric -> new ToolExecutor.Call<>(metric, () -> dailyMetric(userId, date, metric)))
+                .toList();
+        return toolExecutor.invokeAll(calls);
+    }
 
-        var data = fitbitClient.getHeartRateByDate(date);
+    private Object dailyMetric(String userId, LocalDate date, String metric) {
+        return switch (metric) {
+            case "restingHeartRate" -> restingHeartRate(userId, date);
+            case "sleepHours" -> getSleepHoursForDay(userId, date);
+            case "remSleepMinutes" -> getRemSleepMinutes(userId, date);
+            case "steps" -> getStepsForDay(userId, date);
+            case "activeZoneMinutes" -> getActiveMinutesInWeek(userId, date, date);
+            default -> throw new IllegalArgumentException("Unknown metric: " + metric);
+        };
+    }
 
-        if (data.activitiesHeart().isEmpty() || data.activitiesHeart().getFirst().value().restingHeartRate() == null) {
-            return -1;
-        }
+    public Integer restingHeartRate(String userId, LocalDate date) {
+        logger.info("Getting resting heart rate for date {}", date);
 
-        HeartRateData.HeartRateValue value = data.activitiesHeart().getFirst().value();
-        return value.restingHeartRate();
+        return syncedDay(userId, date)
+                .map(FitbitDay::restingHeartRate)
+                .orElseGet(() -> FitbitDay.restingHeartRateOf(fitbitClient.getHeartRateByDate(date)));
     }
 
-    public Integer isHeartRateOutsideSafeRange(LocalDate date, int minThreshold, int maxThreshold) {
+    public Integer isHeartRateOutsideSafeRange(String userId, LocalDate date, int minThreshold, int maxThreshold) {
         logger.info("Checking heart rate for date {} with thresholds {} - {}", date, minThreshold, maxThreshold);
 
-        var data = fitbitClient.getHeartRateByDate(date);
-
-        if (data.activitiesHeartIntraday() == null || data.activitiesHeartIntraday().dataset() == null || data.activitiesHeartIntraday().dataset().isEmpty()) {
-            return 0;
-        }
-
-        List<HeartRateData.HeartRateDataPoint> dataPoints = data.activitiesHeartIntraday().dataset();
-
-        Integer maxDeviation = null;
-        Integer mostExtremeValue = null;
-
-        for (HeartRateData.HeartRateDataPoint point : dataPoints) {
-            int value = point.value();
-            int deviation = 0;
-
-            if (value < minThreshold) {
-                deviation = minThreshold - value;
-            } else if (value > maxThreshold) {
-                deviation = value - maxThreshold;
-            }
-
-            if (deviation > 0 && (maxDeviation == null || deviation > maxDeviation)) {
-                maxDeviation = deviation;
-                mostExtremeValue = value;
-            }
-        }
-
-        return mostExtremeValue != null ? mostExtremeValue : 0;
+        return syncedDay(userId, date)
+                .map(day -> day.mostExtremeHeartRate(minThreshold, maxThreshold))
+                .orElseGet(() -> FitbitDay.mostExtremeHeartRateOf(fitbitClient.getHeartRateByDate(date), minThreshold, maxThreshold));
     }
 
-    public Integer getActiveMinutesInWeek(LocalDate startDate, LocalDate endDate) {
+    public Integer getActiveMinutesInWeek(String userId, LocalDate startDate, LocalDate endDate) {
         logger.info("Getting active minutes from {} to {}", startDate, endDate);
-        List<ActiveZoneMinutesData> list = new ArrayList<>();
 
-        LocalDate currentDate = startDate;
-        while (!currentDate.isAfter(endDate)) {
-            list.add(fitbitClient.getActiveZoneMinutesByDate(currentDate));
-            currentDate = currentDate.plusDays(1);
+        var synced = syncedDays(userId, startDate, endDate);
+        if (synced.size() == startDate.datesUntil(endDate.plusDays(1)).count()) {
+            return synced.values().stream().mapToInt(FitbitDay::activeZoneMinutes).sum();
         }
 
-        int totalActiveMinutes = 0;
-
-        for (ActiveZoneMinutesData azm : list) {
-            if (azm.activitiesActiveZoneMinutes() != null && !azm.activitiesActiveZoneMinutes().isEmpty()) {
-                ActiveZoneMinutesData.ActiveZoneMinutesValue value = azm.activitiesActiveZoneMinutes().getFirst().value();
-
-                if (value.activeZoneMinutes() != null) {
-                    totalActiveMinutes += value.activeZoneMinutes();
-                }
-            }
-        }
-
-        return totalActiveMinutes;
+        // one request for the whole range, the response contains one entry per day
+        return FitbitDay.activeZoneMinutesOf(fitbitClient.getActiveZoneMinutesByDateRange(startDate, endDate));
     }
 
-    public Double getSleepHoursForDay(LocalDate date) {
+    public Double getSleepHoursForDay(String userId, LocalDate date) {
         logger.info("Getting sleep hours for date {}", date);
+        return syncedDay(userId, date)
+                .map(FitbitDay::sleepHours)
+                .orElseGet(() -> sleepHoursForDay(date).toCompletableFuture().join());
+    }
 
-        var data = fitbitClient.getSleepLogByDate(date);
+    public Map<String, Double> getSleepHoursInRange(String userId, LocalDate startDate, LocalDate endDate) {
+        logger.info("Getting sleep hours from {} to {}", startDate, endDate);
+        return perDay(userId, startDate, endDate, FitbitDay::sleepHours, this::sleepHoursForDay);
+    }
 
-        if (data.summary() != null && data.summary().totalMinutesAsleep() != null) {
-            return data.summary().totalMinutesAsleep() / 60.0;
-        } else {
-            return 0.0;
-        }
+    private CompletionStage<Double> sleepHoursForDay(LocalDate date) {
+        return fitbitClient.getSleepLogByDateAsync(date).thenApply(FitbitDay::sleepHoursOf);
     }
 
-    public Integer getRemSleepMinutes(LocalDate date) {
+    public Integer getRemSleepMinutes(String userId, LocalDate date) {
         logger.info("Getting REM sleep minutes for date {}", date);
+        return syncedDay(userId, date)
+                .map(FitbitDay::remSleepMinutes)
+                .orElseGet(() -> remSleepMinutesForDay(date).toCompletableFuture().join());
+    }
 
-        var data = fitbitClient.getSleepLogByDate(date);
-
-        if (data.sleep() == null || data.sleep().isEmpty())
-            return 0;
+    public Map<String, Integer> getRemSleepMinutesInRange(String userId, LocalDate startDate, LocalDate endDate) {
+        logger.info("Getting REM sleep minutes from {} to {}", startDate, endDate);
+        return perDay(userId, startDate, endDate, FitbitDay::remSleepMinutes, this::remSleepMinutesForDay);
+    }
 
-        int totalRemMinutes = 0;
+    private CompletionStage<Integer> remSleepMinutesForDay(LocalDate date) {
+        return fitbitClient.getSleepLogByDateAsync(date).thenApply(FitbitDay::remSleepMinutesOf);
+    }
 
-        for (SleepLogData.Sleep sleep : data.sleep()) {
-            if (sleep.levels() != null && sleep.levels().summary() != null && sleep.levels().summary().rem() != null && sleep.levels().summary().rem().minutes() != null) {
-                totalRemMinutes += sleep.levels().summary().rem().minutes();
+    public List<DailyActivitySummary.Activity> getSportActivitiesInWeek(LocalDate startDate, LocalDate endDate) {
+        logger.info("Getting sport activities from {} to {}", startDate, endDate);
+        List<DailyActivitySummary.Activity> activities = new ArrayList<>();
+
+        // page through the activity log (sorted ascending) until we pass the end date,
+        // following the next links since the endpoint does not support offsets
+        var page = fitbitClient.getActivityLogList(startDate, ACTIVITY_LOG_PAGE_SIZE);
+        boolean pastEndDate = false;
+        while (!pastEndDate) {
+            if (page.activities() == null || page.activities().isEmpty())
+                break;
+
+            for (ActivityLogList.ActivityLog log : page.activities()) {
+                LocalDate date = log.startDate();
+                if (date == null)
+                    // without a start time the activity cannot be placed in the range
+                    continue;
+                if (date.isAfter(endDate)) {
+                    pastEndDate = true;
+                    break;
+                }
+                if (!date.isBefore(startDate)) {
+                    activities.add(log.toActivity());
+                }
             }
+
+            if (pastEndDate || page.pagination() == null || page.pagination().next() == null || page.pagination().next().isEmpty())
+                break;
+            page = fitbitClient.getActivityLogListPage(page.pagination().next());
         }
 
-        return totalRemMinutes;
+        // Collect activities that are sports or intensive (like gym or aerobic)
+        return activities.stream()
+                .filter(activity -> {
+                    String name = activity.name() != null ? activity.name().toLowerCase() : "";
+                    String parentName = activity.activityParentName() != null ? activity.activityParentName().toLowerCase() : "";
+
+                    return name.contains("sport") || name.contains("gym") || name.contains("aerobic") ||
+                            parentName.contains("sport") || parentName.contains("gym") || parentName.contains("aerobic");
+                })
+                .toList();
     }
 
-    public List<DailyActivitySummary.Activity> getSportActivitiesInWeek(LocalDate startDate, LocalDate endDate) {
-        logger.info("Getting sport activities from {} to {}", startDate, endDate);
-        List<DailyActivitySummary> list = new ArrayList<>();
+    public Integer getStepsForDay(String userId, LocalDate date) {
+        logger.info("Getting steps for date {}", date);
+        return syncedDay(userId, date)
+                .map(FitbitDay::steps)
+                .orElseGet(() -> stepsForDay(date).toCompletableFuture().join());
+    }
+
+    public Map<String, Integer> getStepsInRange(String userId, LocalDate startDate, LocalDate endDate) {
+        logger.info("Getting steps from {} to {}", startDate, endDate);
+        return perDay(userId, startDate, endDate, FitbitDay::steps, this::stepsForDay);
+    }
 
-        LocalDate currentDate = startDate;
-        while (!currentDate.isAfter(endDate)) {
-            list.add(fitbitClient.getDailyActivitySummary(currentDate));
-            currentDate = currentDate.plusDays(1);
+    private CompletionStage<Integer> stepsForDay(LocalDate date) {
+        return fitbitClient.getDailyActivitySummaryAsync(date).thenApply(FitbitDay::stepsOf);
+    }
+
+    private Optional<FitbitDay> syncedDay(String userId, LocalDate date) {
+        return Optional.ofNullable(syncedDays(userId, date, date).get(date));
+    }
+
+    /**
+     * The synced days of the range. Today is never taken from the synced data since it is still changing.
+     */
+    private Map<LocalDate, FitbitDay> syncedDays(String userId, LocalDate startDate, LocalDate endDate) {
+        LocalDate today = LocalDate.now();
+        if (!startDate.isBefore(today)) {
+            return Map.of();
         }
 
-        List<DailyActivitySummary.Activity> sportActivities = new ArrayList<>();
+        var days = componentClient.forView()
+                .method(FitbitDayView::getDays)
+                .invoke(new FitbitDayView.DayRangeRequest(userId, startDate.toString(), endDate.toString()));
 
-        for (DailyActivitySummary summary : list) {
-            if (summary.activities() != null) {
-                // Collect activities that are sports or intensive (like gym or aerobic)
-                List<DailyActivitySummary.Activity> intensiveActivities = summary.activities().stream()
-                        .filter(activity -> {
-                            String name = activity.name() != null ? activity.name().toLowerCase() : "";
-                            String parentName = activity.activityParentName() != null ? activity.activityParentName().toLowerCase() : "";
+        return days.days().stream()
+                .filter(day -> LocalDate.parse(day.date()).isBefore(today))
+                .collect(Collectors.toMap(day -> LocalDate.parse(day.date()), day -> day));
+    }
 
-                            return name.contains("sport") || name.contains("gym") || name.contains("aerobic") ||
-                                    parentName.contains("sport") || parentName.contains("gym") || parentName.contains("aerobic");
-                        })
-                        .toList();
+    /**
+     * Gets a value for each day of the range, from the synced data where possible and otherwise from
+     * the Fitbit API with at most {@code parallelism} requests in flight.
+     */
+    private <T> Map<String, T> perDay(String userId, LocalDate startDate, LocalDate endDate,
+                                      Function<FitbitDay, T> local, Function<LocalDate, CompletionStage<T>> fetch) {
+        var synced = syncedDays(userId, startDate, endDate);
+        return perDay(startDate, endDate, date -> synced.containsKey(date)
+                ? CompletableFuture.completedFuture(local.apply(synced.get(date)))
+                : fetch.apply(date));
+    }
 
-                sportActivities.addAll(intensiveActivities);
-            }
+    /**
+     * Fetches a value for each day of the range, with at most {@code parallelism} requests in flight.
+     * The result is keyed by ISO date and sorted by date.
+     */
+    private <T> Map<String, T> perDay(LocalDate startDate, LocalDate endDate, Function<LocalDate, CompletionStage<T>> fetch) {
+        Queue<LocalDate> pending = new ConcurrentLinkedQueue<>(startDate.datesUntil(endDate.plusDays(1)).toList());
+        Map<LocalDate, T> results = new ConcurrentHashMap<>();
+
+        int lanes = Math.max(1, Math.min(parallelism, pending.size()));
+        var futures = new CompletableFuture<?>[lanes];
+        for (int i = 0; i < lanes; i++) {
+            futures[i] = nextDay(pending, fetch, results).toCompletableFuture();
         }
+        CompletableFuture.allOf(futures).join();
 
-        return sportActivities;
+        Map<String, T> sorted = new TreeMap<>();
+        results.forEach((date, value) -> sorted.put(date.toString(), value));
+        return sorted;
     }
 
-    public Integer getStepsForDay(LocalDate date) {
-        logger.info("Getting steps for date {}", date);
-
-        var data = fitbitClient.getDailyActivitySummary(date);
+    private <T> CompletionStage<Void> nextDay(Queue<LocalDate> pending, Function<LocalDate, CompletionStage<T>> fetch, Map<LocalDate, T> results) {
+        LocalDate date = pending.poll();
+        if (date == null)
+            return CompletableFuture.completedFuture(null);
 
-        if (data.summary() != null && data.summary().steps() != null)
-            return data.summary().steps();
-        else
-            return 0;
+        return fetch.apply(date).thenCompose(value -> {
+            results.put(date, value);
+            return nextDay(pending, fetch, results);
+        });
     }
 }
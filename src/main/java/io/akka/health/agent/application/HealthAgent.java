@@ -3,20 +3,27 @@ package io.akka.health.agent.application;
 
 import akka.javasdk.agent.Agent;
 import akka.javasdk.agent.MemoryProvider;
+import akka.javasdk.agent.ModelProvider;
 import akka.javasdk.annotations.AgentDescription;
 import akka.javasdk.annotations.ComponentId;
 import akka.javasdk.annotations.FunctionTool;
 import akka.javasdk.client.ComponentClient;
+import com.typesafe.config.Config;
 import io.akka.health.fitbit.FitbitClient;
 
 import io.akka.health.fitbit.domain.DailyActivitySummary;
+import io.akka.health.agent.domain.AgentSessionId;
+import io.akka.health.agent.domain.ConversationWindow;
 import io.akka.health.agent.domain.HealthAgentRequest;
+import io.akka.health.agent.domain.ModelTier;
+import io.akka.health.ingest.application.SensorEntity;
 import io.akka.health.ingest.application.SensorView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @ComponentId("health-agent")
 @AgentDescription(name = "Health Agent", description = "A personal health assistant with knowledge about the user's health data.")
@@ -27,73 +34,176 @@ public class HealthAgent extends Agent {
   private final String systemMessage = """
     You are a personal health assistant that helps the user to stay healthy.
     You have access to the user's health data that is observed through fitness trackers and made available through Fitbit.
-    You have access to the user's medical records.
+    You have access to the user's medical records. If no knowledge from the medical records is given
+    and the question depends on the user's medical history, search the medical records.
+    When several metrics of the same day are needed, get them with a single getDailyMetrics call.
     Answer the question in a concise way.
     """;
   private final FitbitTool fitbitTool;
   private final SensorTool sensorTool;
   private final MedicalRecordRAG medicalRecordRAG;
+  private final MedicalRecordRAG.RetrievalMode retrievalMode;
+  private final ModelProvider fastModel;
+  private final ModelProvider strongModel;
 
-  public HealthAgent(ComponentClient componentClient, MedicalRecordRAG medicalRecordRAG, FitbitClient fitbitClient) {
+  public HealthAgent(ComponentClient componentClient, MedicalRecordRAG medicalRecordRAG, FitbitClient fitbitClient,
+                     ToolExecutor toolExecutor, Config config) {
     this.componentClient = componentClient;
-    this.fitbitTool = new FitbitTool(fitbitClient);
+    this.fitbitTool = new FitbitTool(fitbitClient, componentClient, config.getInt("health-agent.fitbit.parallelism"), toolExecutor);
     this.sensorTool = new SensorTool(componentClient);
     this.medicalRecordRAG = medicalRecordRAG;
+    this.retrievalMode = MedicalRecordRAG.RetrievalMode.fromConfig(
+            config.getString("health-agent.medical-records.retrieval-mode"));
+    this.fastModel = ModelProvider.fromConfig("health-agent.models.fast");
+    this.strongModel = ModelProvider.fromConfig("health-agent.models.strong");
   }
 
   public Agent.Effect<String> ask(HealthAgentRequest request) {
+    return effects()
+            .model(model(request.tier()))
+            .memory(MemoryProvider.none())
+            .systemMessage(systemMessage(request.window()))
+            .userMessage(prompt(request))
+            .thenReply();
+  }
+
+  /**
+   * Same as {@link #ask} but streams the tokens of the answer as the model produces them.
+   */
+  public Agent.StreamEffect askStream(HealthAgentRequest request) {
+    return streamEffects()
+            .model(model(request.tier()))
+            .memory(MemoryProvider.none())
+            .systemMessage(systemMessage(request.window()))
+            .userMessage(prompt(request))
+            .thenReply();
+  }
+
+  private ModelProvider model(ModelTier tier) {
+    return tier == ModelTier.FAST ? fastModel : strongModel;
+  }
+
+  /**
+   * The earlier conversation is taken from the window of the conversation log, which the endpoint appends each
+   * exchange to before it answers, instead of the session memory: the older messages are represented by the
+   * rolling summary that {@link ConversationCompactionConsumer} maintains and the messages after the summary are
+   * included, so nothing falls between the two.
+   */
+  private String systemMessage(ConversationWindow window) {
+    var message = new StringBuilder(systemMessage);
+    if (window.summary() != null && !window.summary().isBlank()) {
+      message.append("\nSummary of the earlier conversation:\n").append(window.summary()).append('\n');
+    }
+    if (!window.messages().isEmpty()) {
+      message.append("\nRecent conversation:\n");
+      window.messages().forEach(turn -> message
+              .append(turn.origin().equals("ai") ? "Assistant: " : "User: ")
+              .append(turn.message())
+              .append('\n'));
+    }
+    return message.toString();
+  }
+
+  /**
+   * The user the session belongs to. The tools only access the data of this user, the model cannot choose
+   * another one since the session id is set by the endpoint.
+   */
+  private String userId() {
+    return AgentSessionId.parse(context().sessionId()).userId();
+  }
+
+  private String prompt(HealthAgentRequest request) {
     String promptTemplate = """
         Question: %s
         Knowledge: %s
-        UserId: %s
         """;
 
-    String knowledge = medicalRecordRAG.retrieve(request.question(), request.userId());
-    String prompt = promptTemplate.formatted(request.question(), knowledge, request.userId());
+    String knowledge = preRetrieve(request.question())
+            ? medicalRecordRAG.retrieve(request.question(), userId())
+            : "none (search the medical records if needed)";
+    String prompt = promptTemplate.formatted(request.question(), knowledge);
 
     logger.info("Processing request: {}", prompt);
+    return prompt;
+  }
 
-    return effects()
-            .memory(MemoryProvider.limitedWindow())
-            .systemMessage(systemMessage)
-            .userMessage(prompt)
-            .thenReply();
+  private boolean preRetrieve(String question) {
+    return switch (retrievalMode) {
+      case ALWAYS -> true;
+      case ON_DEMAND -> false;
+      case HEURISTIC -> MedicalRecordRAG.looksLikeMedicalQuestion(question);
+    };
+  }
+
+  @FunctionTool(description = "Search the medical records (visits, diagnoses, medication, doctor's notes) of the user for information relevant to a question.")
+  public String searchMedicalRecords(String question) {
+    return medicalRecordRAG.retrieve(question, userId());
   }
 
-  @FunctionTool(description = "Get all Sensor Data for a specific user")
-  private SensorView.AllSensorData getSensorData(String userId) {
-    return sensorTool.getSensorData(userId);
+  @FunctionTool(description = "Get the latest reading of each sensor (e.g. heart rate, blood pressure) of the user")
+  private SensorView.LatestSensorData getSensorData() {
+    return sensorTool.getSensorData(userId());
   }
 
-  @FunctionTool(description = "Get resting heart rate for a specific date")
+  @FunctionTool(description = "Get sensor readings of the user, newest first. Filter by sensor description (e.g. 'heart rate', empty for all sensors) and a time range given as ISO-8601 instants (e.g. '2025-04-26T00:00:00Z', empty for no bound). Returns at most limit readings (max 100).")
+  private SensorEntity.ReadingsPage getSensorReadings(String description, String from, String to, int limit) {
+    return sensorTool.getSensorReadings(userId(), description, from, to, limit);
+  }
+
+  @FunctionTool(description = "Get hourly or daily statistics (count, min, max, average, last) of a sensor (e.g. 'heart rate', 'blood pressure') of the user. Period is 'hour' or 'day'; the time range is given as ISO-8601 instants (empty for no bound). Prefer this over raw readings for trends and averages.")
+  private SensorTool.SensorStatistics getSensorStatistics(String description, String period, String from, String to) {
+    return sensorTool.getSensorStatistics(userId(), description, period, from, to);
+  }
+
+  @FunctionTool(description = "Get several metrics of the user for one date at once. Metrics are any of 'restingHeartRate', 'sleepHours', 'remSleepMinutes', 'steps' and 'activeZoneMinutes'. Returns one result per requested metric, in the same order, with either a value or an error.")
+  public List<ToolExecutor.Result<Object>> getDailyMetrics(String date, List<String> metrics) {
+    LocalDate parsedDate = LocalDate.parse(date);
+    return fitbitTool.getDailyMetrics(userId(), parsedDate, metrics);
+  }
+
+  @FunctionTool(description = "Get resting heart rate of the user for a date")
   public Integer restingHeartRate(String date) {
     LocalDate parsedDate = LocalDate.parse(date);
-    return fitbitTool.restingHeartRate(parsedDate);
+    return fitbitTool.restingHeartRate(userId(), parsedDate);
   }
 
-  @FunctionTool(description = "Check if heart rate (in bpm) exceeded the range for a specific date. If exceeded, it returns the value that exceeded the range the most. Otherwise it reurns 0.")
+  @FunctionTool(description = "Check if the heart rate (in bpm) of the user exceeded the range on a date. If exceeded, it returns the value that exceeded the range the most. Otherwise it reurns 0.")
   public Integer isHeartRateOutsideSafeRange(String date, int minThreshold, int maxThreshold) {
     LocalDate parsedDate = LocalDate.parse(date);
-    return fitbitTool.isHeartRateOutsideSafeRange(parsedDate, minThreshold, maxThreshold);
+    return fitbitTool.isHeartRateOutsideSafeRange(userId(), parsedDate, minThreshold, maxThreshold);
   }
 
-  @FunctionTool(description = "Get total active minutes for a specific date range (usually one week).")
+  @FunctionTool(description = "Get total active minutes of the user for a date range (usually one week).")
   public Integer getActiveMinutesInWeek(String startDate, String endDate) {
     LocalDate start = LocalDate.parse(startDate);
     LocalDate end = LocalDate.parse(endDate);
-    return fitbitTool.getActiveMinutesInWeek(start, end);
+    return fitbitTool.getActiveMinutesInWeek(userId(), start, end);
   }
 
-  @FunctionTool(description = "Get amount of sleep hours for a specific date.")
+  @FunctionTool(description = "Get amount of sleep hours of the user for a date.")
   public Double getSleepHoursForDay(String date) {
     LocalDate parsedDate = LocalDate.parse(date);
-    return fitbitTool.getSleepHoursForDay(parsedDate);
+    return fitbitTool.getSleepHoursForDay(userId(), parsedDate);
+  }
+
+  @FunctionTool(description = "Get amount of sleep hours of the user for each day in a date range.")
+  public Map<String, Double> getSleepHoursInRange(String startDate, String endDate) {
+    LocalDate start = LocalDate.parse(startDate);
+    LocalDate end = LocalDate.parse(endDate);
+    return fitbitTool.getSleepHoursInRange(userId(), start, end);
   }
 
-  @FunctionTool(description = "Get amount of REM sleep in minutes for a specific date.")
+  @FunctionTool(description = "Get amount of REM sleep in minutes of the user for a date.")
   public Integer getRemSleepMinutes(String date) {
     LocalDate parsedDate = LocalDate.parse(date);
-    return fitbitTool.getRemSleepMinutes(parsedDate);
+    return fitbitTool.getRemSleepMinutes(userId(), parsedDate);
+  }
+
+  @FunctionTool(description = "Get amount of REM sleep in minutes of the user for each day in a date range.")
+  public Map<String, Integer> getRemSleepMinutesInRange(String startDate, String endDate) {
+    LocalDate start = LocalDate.parse(startDate);
+    LocalDate end = LocalDate.parse(endDate);
+    return fitbitTool.getRemSleepMinutesInRange(userId(), start, end);
   }
 
   @FunctionTool(description = "Get all sport activities (sport, gym, aerobic) for a specific date range (usually one week).")
@@ -103,9 +213,16 @@ public class HealthAgent extends Agent {
     return fitbitTool.getSportActivitiesInWeek(start, end);
   }
 
-  @FunctionTool(description = "Get number of steps walked for a specific date.")
+  @FunctionTool(description = "Get number of steps walked by the user on a date.")
   public Integer getStepsForDay(String date) {
     LocalDate parsedDate = LocalDate.parse(date);
-    return fitbitTool.getStepsForDay(parsedDate);
+    return fitbitTool.getStepsForDay(userId(), parsedDate);
+  }
+
+  @FunctionTool(description = "Get number of steps walked by the user for each day in a date range.")
+  public Map<String, Integer> getStepsInRange(String startDate, String endDate) {
+    LocalDate start = LocalDate.parse(startDate);
+    LocalDate end = LocalDate.parse(endDate);
+    return fitbitTool.getStepsInRange(userId(), start, end);
   }
 }
@@ -1,58 +1,106 @@
 package io.akka.health.agent.application;
 
-import com.mongodb.client.MongoClient;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.rag.AugmentationRequest;
-import dev.langchain4j.rag.DefaultRetrievalAugmentor;
-import dev.langchain4j.rag.RetrievalAugmentor;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.rag.content.Content;
 import dev.langchain4j.rag.content.injector.ContentInjector;
 import dev.langchain4j.rag.content.injector.DefaultContentInjector;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
 import dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever;
 import dev.langchain4j.rag.query.Metadata;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.store.embedding.filter.MetadataFilterBuilder;
-import io.akka.health.common.MongoDbUtils;
-import io.akka.health.common.OpenAiUtils;
+import io.akka.health.common.TokenEstimates;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Retrieves the medical record segments relevant to a question.
+ * <p>
+ * The embedding store, embedding model and content retriever are built once and shared
+ * by all agent calls. The patient filter is resolved per request from the query metadata.
+ * The retrieved segments are packed into a token budget by the {@link ContextPacker}.
+ */
 public class MedicalRecordRAG {
-    private final MongoDbUtils.MongoDbConfig mongoDbConfig;
     private final static Logger logger = LoggerFactory.getLogger(MedicalRecordRAG.class);
 
+    /**
+     * When the medical records are searched for a question.
+     * <ul>
+     *   <li>{@code ALWAYS}: retrieve before every LLM call and add the result to the prompt.</li>
+     *   <li>{@code ON_DEMAND}: only retrieve when the LLM calls the medical record search tool.</li>
+     *   <li>{@code HEURISTIC}: retrieve up front when {@link #looksLikeMedicalQuestion} matches, otherwise on demand.</li>
+     * </ul>
+     */
+    public enum RetrievalMode {
+        ALWAYS, ON_DEMAND, HEURISTIC;
 
-    public MedicalRecordRAG(MongoClient mongoClient) {
-        this.mongoDbConfig = new MongoDbUtils.MongoDbConfig(
-                mongoClient,
-                "health",
-                "medicalrecord",
-                "medicalrecord-index");
+        public static RetrievalMode fromConfig(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
     }
 
-    public String retrieve(String question, String userId) {
-        // Create a retriever
-        var contentRetriever = EmbeddingStoreContentRetriever.builder()
-                .embeddingStore(MongoDbUtils.embeddingStore(mongoDbConfig))
-                .embeddingModel(OpenAiUtils.embeddingModel())
+    private static final List<String> MEDICAL_KEYWORDS = List.of(
+            "doctor", "visit", "diagnos", "medic", "prescri", "pill", "drug", "treatment", "therapy",
+            "symptom", "pain", "condition", "illness", "disease", "allerg", "surgery", "record", "history",
+            "hospital", "clinic", "lab", "test result", "injur", "why do i", "should i");
+
+    private final ContentRetriever contentRetriever;
+    private final ContextPacker contextPacker;
+    private final ContentInjector contentInjector;
+
+    /**
+     * @param contextTokenBudget maximum number of tokens of medical record text added to a question
+     */
+    public MedicalRecordRAG(EmbeddingStore<TextSegment> embeddingStore, EmbeddingModel embeddingModel, int contextTokenBudget) {
+        this.contentRetriever = EmbeddingStoreContentRetriever.builder()
+                .embeddingStore(embeddingStore)
+                .embeddingModel(embeddingModel)
                 .maxResults(10)
                 .minScore(0.1)
-                // Currently the patientId must equal the userId
-                .filter(MetadataFilterBuilder.metadataKey("patientId").isEqualTo(userId))
-                .build();
-        var retrievalAugmenter = DefaultRetrievalAugmentor.builder()
-                .contentRetriever(contentRetriever)
+                // Currently the patientId must equal the userId, which is passed as the chat memory id
+                .dynamicFilter(query -> MetadataFilterBuilder.metadataKey("patientId")
+                        .isEqualTo(query.metadata().chatMemoryId().toString()))
                 .build();
+        this.contextPacker = new ContextPacker(contextTokenBudget);
+        this.contentInjector = new DefaultContentInjector();
+    }
+
+    public String retrieve(String question, String userId) {
+        long start = System.nanoTime();
 
         // Retrieve the data
         var chatMessage = new UserMessage(question);
-        var metadata = Metadata.from(chatMessage, null, null);
-        var augmentationRequest = new AugmentationRequest(chatMessage, metadata);
+        var metadata = Metadata.from(chatMessage, userId, null);
 
-        var result = retrievalAugmenter.augment(augmentationRequest);
-        logger.info("Retrieved the following content: {}", result.contents());
+        List<Content> retrieved = contentRetriever.retrieve(Query.from(question, metadata));
+        logger.info("Retrieved the following content: {}", retrieved);
 
-        UserMessage augmented = (UserMessage) new DefaultContentInjector().inject(result.contents(), chatMessage);
+        List<Content> packed = contextPacker.pack(retrieved);
+        UserMessage augmented = (UserMessage) contentInjector.inject(packed, chatMessage);
         logger.info("Augmented message: {}", augmented);
+        logger.info("Retrieved {} segments ({} tokens), packed into {} passages ({} tokens) for user {} in {} ms",
+                retrieved.size(), tokens(retrieved), packed.size(), tokens(packed),
+                userId, Duration.ofNanos(System.nanoTime() - start).toMillis());
         return augmented.singleText();
     }
 
+    private static int tokens(List<Content> contents) {
+        return contents.stream().mapToInt(content -> TokenEstimates.tokens(content.textSegment().text())).sum();
+    }
+
+    /**
+     * Cheap keyword check whether a question probably needs the user's medical history.
+     */
+    public static boolean looksLikeMedicalQuestion(String question) {
+        var lower = question.toLowerCase(Locale.ROOT);
+        return MEDICAL_KEYWORDS.stream().anyMatch(lower::contains);
+    }
+
 }
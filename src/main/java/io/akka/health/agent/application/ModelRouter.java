@@ -0,0 +1,131 @@
+package io.akka.health.agent.application;
+
+import io.akka.health.agent.domain.ModelTier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Decides which {@link ModelTier} answers a question, and records the decisions and the latency per tier.
+ * <p>
+ * Questions about a single metric, answerable with one tool call, go to the fast tier. Questions that mention
+ * several metrics, ask for comparisons or trends, or need the medical history go to the strong tier. A fast
+ * tier that fails, or answers in a way that fails validation, is escalated to the strong tier, see
+ * {@link #answer}.
+ */
+public class ModelRouter {
+
+    private final static Logger logger = LoggerFactory.getLogger(ModelRouter.class);
+
+    public record TierStats(long requests, long escalatedFrom, long totalLatencyMillis, long averageLatencyMillis) {}
+
+    public record Stats(Map<ModelTier, TierStats> tiers) {}
+
+    private static final List<String> METRIC_KEYWORDS = List.of(
+            "heart rate", "pulse", "bpm", "sleep", "step", "active", "activity", "activities", "sport",
+            "workout", "weight", "blood pressure", "oxygen", "temperature", "glucose");
+
+    private static final List<String> MULTI_STEP_KEYWORDS = List.of(
+            "compare", "comparison", "trend", "average", "correlat", "why", "how come", "explain", "improve",
+            "recommend", "should", "over the", "last week", "last month", "this week", "this month", " and ", " vs");
+
+    // phrases of answers where the fast model did not manage to get the data; only whole phrases, since single
+    // words like "error" also appear in good answers, e.g. about a measurement error of a sensor
+    private static final List<String> FAILED_ANSWER_MARKERS = List.of(
+            "i'm unable", "i am unable", "i couldn't", "i could not", "i can't", "i cannot", "i don't have access",
+            "not able to retrieve", "failed to retrieve", "failed to get", "failed to fetch", "an error occurred");
+
+    private final Map<ModelTier, AtomicLong> requests = new EnumMap<>(ModelTier.class);
+    private final Map<ModelTier, AtomicLong> escalations = new EnumMap<>(ModelTier.class);
+    private final Map<ModelTier, AtomicLong> latencies = new EnumMap<>(ModelTier.class);
+
+    public ModelRouter() {
+        for (ModelTier tier : ModelTier.values()) {
+            requests.put(tier, new AtomicLong());
+            escalations.put(tier, new AtomicLong());
+            latencies.put(tier, new AtomicLong());
+        }
+    }
+
+    public ModelTier route(String question) {
+        var lower = question.toLowerCase(Locale.ROOT);
+        long metrics = METRIC_KEYWORDS.stream().filter(lower::contains).count();
+        boolean multiStep = MULTI_STEP_KEYWORDS.stream().anyMatch(lower::contains);
+        boolean medical = MedicalRecordRAG.looksLikeMedicalQuestion(question);
+
+        var tier = metrics <= 1 && !multiStep && !medical ? ModelTier.FAST : ModelTier.STRONG;
+        logger.info("Routing to {} (metrics: {}, multi-step: {}, medical: {}): {}", tier, metrics, multiStep, medical, question);
+        return tier;
+    }
+
+    /**
+     * Answers with the given tier, escalating to the strong tier when the fast tier fails or its answer is not
+     * acceptable. The latency of each tier asked is recorded; a failure of the strong tier is thrown.
+     *
+     * @param ask asks the question with the model of the given tier
+     */
+    public String answer(ModelTier tier, Function<ModelTier, String> ask) {
+        if (tier != ModelTier.FAST)
+            return timed(tier, ask);
+
+        String answer;
+        try {
+            answer = timed(tier, ask);
+        } catch (RuntimeException e) {
+            logger.warn("Answering with {} failed", tier, e);
+            answer = null;
+        }
+        if (isAcceptable(answer))
+            return answer;
+
+        recordEscalation(tier);
+        return timed(ModelTier.STRONG, ask);
+    }
+
+    private String timed(ModelTier tier, Function<ModelTier, String> ask) {
+        long start = System.nanoTime();
+        try {
+            return ask.apply(tier);
+        } finally {
+            recordLatency(tier, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        }
+    }
+
+    /**
+     * Whether an answer looks like the model managed to answer the question.
+     */
+    public boolean isAcceptable(String answer) {
+        if (answer == null || answer.isBlank())
+            return false;
+        var lower = answer.toLowerCase(Locale.ROOT);
+        return FAILED_ANSWER_MARKERS.stream().noneMatch(lower::contains);
+    }
+
+    public void recordLatency(ModelTier tier, long latencyMillis) {
+        requests.get(tier).incrementAndGet();
+        latencies.get(tier).addAndGet(latencyMillis);
+        logger.info("Answered by {} in {} ms", tier, latencyMillis);
+    }
+
+    public void recordEscalation(ModelTier from) {
+        escalations.get(from).incrementAndGet();
+        logger.info("Escalating from {}", from);
+    }
+
+    public Stats stats() {
+        Map<ModelTier, TierStats> tiers = new EnumMap<>(ModelTier.class);
+        for (ModelTier tier : ModelTier.values()) {
+            long count = requests.get(tier).get();
+            long total = latencies.get(tier).get();
+            tiers.put(tier, new TierStats(count, escalations.get(tier).get(), total, count == 0 ? 0 : total / count));
+        }
+        return new Stats(tiers);
+    }
+}
@@ -0,0 +1,36 @@
+package io.akka.health.agent.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.consumer.Consumer;
+import com.typesafe.config.Config;
+import io.akka.health.ingest.application.SensorEntity;
+
+/**
+ * Moves the {@link DataVersionEntity} of a user to the current time window when new sensor readings are added.
+ * <p>
+ * Bumping on every reading would change the version many times a minute for a user with a streaming sensor and
+ * no cached answer would ever be used. With a window of {@code health-agent.answer-cache.sensor-version-window}
+ * the version changes at most once per window, however many readings or batches arrive.
+ */
+@ComponentId("sensor-data-version-consumer")
+@Consume.FromEventSourcedEntity(SensorEntity.class)
+public class SensorDataVersionConsumer extends Consumer {
+
+  private final ComponentClient componentClient;
+  private final long windowMillis;
+
+  public SensorDataVersionConsumer(ComponentClient componentClient, Config config) {
+    this.componentClient = componentClient;
+    this.windowMillis = config.getDuration("health-agent.answer-cache.sensor-version-window").toMillis();
+  }
+
+  public Effect onEvent(SensorEntity.Event event) {
+    var userId = messageContext().eventSubject().get();
+    componentClient.forKeyValueEntity(userId)
+        .method(DataVersionEntity::advanceSensorWindow)
+        .invoke(System.currentTimeMillis() / windowMillis);
+    return effects().done();
+  }
+}
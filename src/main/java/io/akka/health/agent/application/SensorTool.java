@@ -2,10 +2,18 @@ package io.akka.health.agent.application;
 
 import akka.javasdk.client.ComponentClient;
 import dev.langchain4j.agent.tool.Tool;
+import io.akka.health.ingest.application.SensorEntity;
+import io.akka.health.ingest.application.SensorRollupView;
 import io.akka.health.ingest.application.SensorView;
+import io.akka.health.ingest.domain.SensorRollup;
+import io.akka.health.ingest.domain.SensorValueParsers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
 public class SensorTool {
 
     private final ComponentClient componentClient;
@@ -15,12 +23,70 @@ public class SensorTool {
         this.componentClient = componentClient;
     }
 
-    @Tool("Get all Sensor Data for a specific user")
-    SensorView.AllSensorData getSensorData(String userId) {
-        logger.info("Getting all sensor data for user {}", userId);
+    @Tool("Get the latest reading of each sensor for a specific user")
+    SensorView.LatestSensorData getSensorData(String userId) {
+        logger.info("Getting latest sensor data for user {}", userId);
         return componentClient.forView()
-                .method(SensorView::getSensorDataByByUser)
+                .method(SensorView::getLatestSensorDataByUser)
                 .invoke(userId);
     }
-}
 
+    @Tool("Get sensor readings of a specific user, newest first, filtered by sensor and time range")
+    SensorEntity.ReadingsPage getSensorReadings(String userId, String description, String from, String to, int limit) {
+        logger.info("Getting {} sensor readings for user {} between {} and {}", description, userId, from, to);
+        var query = new SensorEntity.ReadingsQuery(
+                blankToNull(description),
+                blankToNull(from) == null ? null : Instant.parse(from).toEpochMilli(),
+                blankToNull(to) == null ? null : Instant.parse(to).toEpochMilli(),
+                limit,
+                0);
+        return componentClient.forEventSourcedEntity(userId)
+                .method(SensorEntity::getReadings)
+                .invoke(query);
+    }
+
+    public record BucketStatistics(String start, long count, List<Double> min, List<Double> max, List<Double> average, List<Double> last) {
+        static BucketStatistics of(SensorRollup rollup) {
+            return new BucketStatistics(
+                    Instant.ofEpochMilli(rollup.bucketStart()).toString(),
+                    rollup.count(),
+                    rollup.min(),
+                    rollup.max(),
+                    rollup.average(),
+                    rollup.last());
+        }
+    }
+
+    public record SensorStatistics(String description, String period, String unit, BucketStatistics overall, List<BucketStatistics> buckets) {}
+
+    @Tool("Get hourly or daily statistics (count, min, max, average, last) of a sensor of a specific user within a time range")
+    SensorStatistics getSensorStatistics(String userId, String description, String period, String from, String to) {
+        logger.info("Getting {} {} statistics for user {} between {} and {}", period, description, userId, from, to);
+        var normalized = SensorValueParsers.normalizeDescription(description);
+        var bucketPeriod = SensorRollup.HOUR.equalsIgnoreCase(period) ? SensorRollup.HOUR : SensorRollup.DAY;
+        var fromMillis = blankToNull(from) == null ? Long.MIN_VALUE : Instant.parse(from).toEpochMilli();
+        var toMillis = blankToNull(to) == null ? Long.MAX_VALUE : Instant.parse(to).toEpochMilli();
+
+        var rollups = componentClient.forView()
+                .method(SensorRollupView::getRollups)
+                .invoke(new SensorRollupView.RollupRangeRequest(userId, normalized, bucketPeriod, fromMillis, toMillis))
+                .rollups()
+                .stream()
+                .map(SensorRollupView.RollupRow::rollup)
+                .sorted(Comparator.comparingLong(SensorRollup::bucketStart))
+                .toList();
+
+        var overall = rollups.stream().reduce(SensorRollup::merge).map(BucketStatistics::of).orElse(null);
+        var unit = rollups.isEmpty() ? null : rollups.get(rollups.size() - 1).unit();
+        return new SensorStatistics(
+                normalized,
+                bucketPeriod,
+                unit,
+                overall,
+                rollups.stream().map(BucketStatistics::of).toList());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,44 @@
+package io.akka.health.agent.application;
+
+import akka.javasdk.agent.Agent;
+import akka.javasdk.agent.MemoryProvider;
+import akka.javasdk.annotations.AgentDescription;
+import akka.javasdk.annotations.ComponentId;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Folds older messages of a conversation into a rolling summary, used by {@link ConversationCompactionConsumer}
+ * to compact long sessions of the {@link HealthAgent}.
+ */
+@ComponentId("summarizer-agent")
+@AgentDescription(name = "Summarizer Agent", description = "Summarizes the earlier part of a health conversation.")
+public class SummarizerAgent extends Agent {
+
+  public record SummaryRequest(String previousSummary, List<ConversationLogEntity.Message> messages) {}
+
+  private final String systemMessage = """
+    You summarize a conversation between a user and a personal health assistant.
+    Keep the facts that may matter later: health data and values mentioned, dates, medical history,
+    the user's goals and questions, and the answers given. Leave out greetings and repetition.
+    Write at most 200 words.
+    """;
+
+  public Agent.Effect<String> summarize(SummaryRequest request) {
+    String conversation = request.messages().stream()
+            .map(message -> message.origin() + ": " + message.message())
+            .collect(Collectors.joining("\n"));
+    String prompt = """
+        Summary so far: %s
+        Continuation of the conversation:
+        %s
+        """.formatted(request.previousSummary() == null ? "none" : request.previousSummary(), conversation);
+
+    return effects()
+            .memory(MemoryProvider.none())
+            .systemMessage(systemMessage)
+            .userMessage(prompt)
+            .thenReply();
+  }
+}
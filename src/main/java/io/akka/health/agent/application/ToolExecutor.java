@@ -0,0 +1,100 @@
+package io.akka.health.agent.application;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent, blocking tool calls of one agent turn concurrently on a dedicated bounded thread pool,
+ * so that a turn needing several Fitbit lookups waits for the slowest one instead of the sum of all.
+ * <p>
+ * When the pool and its queue are saturated, calls run on the calling thread.
+ */
+public class ToolExecutor {
+
+    private final static Logger logger = LoggerFactory.getLogger(ToolExecutor.class);
+
+    public record Call<T>(String name, Supplier<T> supplier) {}
+
+    /**
+     * The outcome of one call, either a value or an error message.
+     */
+    public record Result<T>(String name, T value, String error) {}
+
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    /**
+     * @param parallelism maximum number of tool calls running concurrently
+     * @param queueSize   maximum number of tool calls waiting for a thread
+     * @param timeout     maximum time a single tool call may take
+     */
+    public ToolExecutor(int parallelism, int queueSize, Duration timeout) {
+        var threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    var thread = new Thread(runnable, "tool-executor-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Runs the calls concurrently and returns their results in the order of the calls. A call that fails or
+     * does not complete within the timeout, counted from its submission, yields a result with an error instead of
+     * failing the other calls. A call that times out is cancelled, interrupting its thread so it stops holding one
+     * of the pool's threads.
+     */
+    public <T> List<Result<T>> invokeAll(List<Call<T>> calls) {
+        var tasks = new ArrayList<FutureTask<T>>(calls.size());
+        var deadlines = new ArrayList<Long>(calls.size());
+        for (Call<T> call : calls) {
+            var task = new FutureTask<>(call.supplier()::get);
+            deadlines.add(System.nanoTime() + timeout.toNanos());
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        var results = new ArrayList<Result<T>>(calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            results.add(await(calls.get(i).name(), tasks.get(i), deadlines.get(i)));
+        }
+        return results;
+    }
+
+    private <T> Result<T> await(String name, FutureTask<T> task, long deadline) {
+        try {
+            return new Result<>(name, task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS), null);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            logger.warn("Tool call {} timed out after {} ms", name, timeout.toMillis());
+            return new Result<>(name, null, "timed out after " + timeout.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            var cause = e.getCause() != null ? e.getCause() : e;
+            logger.warn("Tool call {} failed", name, cause);
+            return new Result<>(name, null, String.valueOf(cause.getMessage()));
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            return new Result<>(name, null, "interrupted");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.akka.health.agent.domain;
+
+import java.util.regex.Pattern;
+
+/**
+ * The id of an agent session, composed of the user id and the session id of the UI.
+ */
+public record AgentSessionId(String userId, String sessionId) {
+
+  private static final Pattern UUID_SUFFIX =
+      Pattern.compile("-([0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12})$");
+
+  public static AgentSessionId parse(String agentSessionId) {
+    // the UI uses UUIDs as session ids, while user ids may contain dashes themselves
+    var matcher = UUID_SUFFIX.matcher(agentSessionId);
+    if (matcher.find()) {
+      return new AgentSessionId(agentSessionId.substring(0, matcher.start()), matcher.group(1));
+    }
+    int i = agentSessionId.indexOf("-");
+    return new AgentSessionId(agentSessionId.substring(0, i), agentSessionId.substring(i + 1));
+  }
+
+  @Override
+  public String toString() {
+    return userId + "-" + sessionId;
+  }
+}
@@ -0,0 +1,21 @@
+package io.akka.health.agent.domain;
+
+import java.util.List;
+
+/**
+ * The part of a session the agent sees: the rolling summary of the earlier messages and every message after it.
+ *
+ * @param summary the summary of the messages before {@code messages}, null if nothing has been summarized yet
+ * @param messages the user and AI messages not covered by the summary, oldest first
+ */
+public record ConversationWindow(String summary, List<Turn> messages) {
+
+  /**
+   * @param origin "user" or "ai"
+   */
+  public record Turn(String origin, String message) {}
+
+  public static ConversationWindow empty() {
+    return new ConversationWindow(null, List.of());
+  }
+}
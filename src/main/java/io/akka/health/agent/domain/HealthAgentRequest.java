@@ -1,3 +1,6 @@
 package io.akka.health.agent.domain;
 
-public record HealthAgentRequest(String question, String userId) {}
+/**
+ * @param window the earlier conversation of the session, read from its conversation log by the caller
+ */
+public record HealthAgentRequest(String question, String userId, ModelTier tier, ConversationWindow window) {}
@@ -0,0 +1,12 @@
+package io.akka.health.agent.domain;
+
+/**
+ * The model configuration a question is answered with.
+ * <ul>
+ *   <li>{@code FAST}: a small, fast model for simple questions that need at most one tool call.</li>
+ *   <li>{@code STRONG}: a stronger model for multi-step questions and questions about the medical history.</li>
+ * </ul>
+ */
+public enum ModelTier {
+  FAST, STRONG
+}
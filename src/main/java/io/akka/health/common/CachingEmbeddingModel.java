@@ -0,0 +1,120 @@
+package io.akka.health.common;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EmbeddingModel} decorator that keeps recently computed embeddings in memory.
+ * <p>
+ * Entries are keyed by model name and normalized text (trimmed, lower-cased, whitespace collapsed),
+ * evicted in least-recently-used order once {@code maxEntries} is reached and expire after {@code ttl}.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+  public record Stats(long hits, long misses, long evictions, int size) {}
+
+  private record Entry(Embedding embedding, long expiresAtNanos) {}
+
+  private final EmbeddingModel delegate;
+  private final String modelName;
+  private final int maxEntries;
+  private final long ttlNanos;
+  private final LinkedHashMap<String, Entry> cache;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public CachingEmbeddingModel(EmbeddingModel delegate, String modelName, int maxEntries, Duration ttl) {
+    this.delegate = delegate;
+    this.modelName = modelName;
+    this.maxEntries = maxEntries;
+    this.ttlNanos = ttl.toNanos();
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        if (size() > CachingEmbeddingModel.this.maxEntries) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  @Override
+  public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+    var embeddings = new ArrayList<Embedding>(segments.size());
+    var missingSegments = new ArrayList<TextSegment>();
+    var missingIndices = new ArrayList<Integer>();
+
+    for (int i = 0; i < segments.size(); i++) {
+      var cached = get(key(segments.get(i)));
+      embeddings.add(cached);
+      if (cached == null) {
+        missingSegments.add(segments.get(i));
+        missingIndices.add(i);
+      }
+    }
+
+    hits.addAndGet(segments.size() - missingSegments.size());
+    misses.addAndGet(missingSegments.size());
+
+    if (!missingSegments.isEmpty()) {
+      var computed = delegate.embedAll(missingSegments).content();
+      for (int i = 0; i < computed.size(); i++) {
+        int index = missingIndices.get(i);
+        embeddings.set(index, computed.get(i));
+        put(key(segments.get(index)), computed.get(i));
+      }
+    }
+
+    return Response.from(embeddings);
+  }
+
+  @Override
+  public int dimension() {
+    return delegate.dimension();
+  }
+
+  public Stats stats() {
+    synchronized (cache) {
+      return new Stats(hits.get(), misses.get(), evictions.get(), cache.size());
+    }
+  }
+
+  private Embedding get(String key) {
+    synchronized (cache) {
+      var entry = cache.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.expiresAtNanos - System.nanoTime() <= 0) {
+        cache.remove(key);
+        return null;
+      }
+      return entry.embedding;
+    }
+  }
+
+  private void put(String key, Embedding embedding) {
+    synchronized (cache) {
+      cache.put(key, new Entry(embedding, System.nanoTime() + ttlNanos));
+    }
+  }
+
+  private String key(TextSegment segment) {
+    var normalized = segment.text().trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    return modelName + ":" + normalized;
+  }
+}
@@ -1,9 +1,12 @@
 package io.akka.health.common;
 
 
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModelName;
 
+import java.time.Duration;
+
 public class OpenAiUtils {
 
   final private static OpenAiEmbeddingModelName embeddingModelName = OpenAiEmbeddingModelName.TEXT_EMBEDDING_3_SMALL;
@@ -14,4 +17,8 @@ public class OpenAiUtils {
       .modelName(embeddingModelName)
       .build();
   }
+
+  public static CachingEmbeddingModel cachingEmbeddingModel(EmbeddingModel delegate, int maxEntries, Duration ttl) {
+    return new CachingEmbeddingModel(delegate, embeddingModelName.toString(), maxEntries, ttl);
+  }
 }
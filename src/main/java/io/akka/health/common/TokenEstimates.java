@@ -0,0 +1,23 @@
+package io.akka.health.common;
+
+/**
+ * Rough token counts for English text, good enough for budgeting prompts and deciding when to compact.
+ */
+public class TokenEstimates {
+
+  private static final int CHARS_PER_TOKEN = 4;
+
+  private TokenEstimates() {}
+
+  public static int tokens(String text) {
+    return text.length() / CHARS_PER_TOKEN;
+  }
+
+  public static long tokens(long chars) {
+    return chars / CHARS_PER_TOKEN;
+  }
+
+  public static int chars(int tokens) {
+    return tokens * CHARS_PER_TOKEN;
+  }
+}
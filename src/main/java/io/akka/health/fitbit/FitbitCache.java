@@ -0,0 +1,106 @@
+package io.akka.health.fitbit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache for parsed Fitbit responses.
+ * <p>
+ * Data of past days rarely changes, so it is kept for {@code pastTtl}. Data of today and yesterday may
+ * still change when the device syncs and is only kept for {@code recentTtl}. The cache holds at most
+ * {@code maxEntries} responses and evicts the least recently used one first.
+ */
+public class FitbitCache {
+
+  public record Stats(long hits, long misses, long staleHits, long evictions, int size) {}
+
+  private record Entry(Object value, long expiresAtNanos) {}
+
+  private final int maxEntries;
+  private final long recentTtlNanos;
+  private final long pastTtlNanos;
+  private final Clock clock;
+  private final LinkedHashMap<String, Entry> cache;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong staleHits = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public FitbitCache(int maxEntries, Duration recentTtl, Duration pastTtl) {
+    this(maxEntries, recentTtl, pastTtl, Clock.systemDefaultZone());
+  }
+
+  public FitbitCache(int maxEntries, Duration recentTtl, Duration pastTtl, Clock clock) {
+    this.maxEntries = maxEntries;
+    this.recentTtlNanos = recentTtl.toNanos();
+    this.pastTtlNanos = pastTtl.toNanos();
+    this.clock = clock;
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        if (size() > FitbitCache.this.maxEntries) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Key for a response of the given user and endpoint path (which includes the requested dates).
+   */
+  public static String key(String user, String path) {
+    return user + ":" + path;
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> T get(String key) {
+    synchronized (cache) {
+      var entry = cache.get(key);
+      if (entry != null && entry.expiresAtNanos - System.nanoTime() > 0) {
+        hits.incrementAndGet();
+        return (T) entry.value;
+      }
+      // expired entries stay until evicted, they can still be served by getStale
+      misses.incrementAndGet();
+      return null;
+    }
+  }
+
+  /**
+   * Returns the cached response even if it has expired, e.g. when the Fitbit API cannot be called.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getStale(String key) {
+    synchronized (cache) {
+      var entry = cache.get(key);
+      if (entry != null) {
+        staleHits.incrementAndGet();
+        return (T) entry.value;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * @param latestDate the most recent date covered by the response, which determines how long it is kept
+   */
+  public void put(String key, Object value, LocalDate latestDate) {
+    long ttl = latestDate.isBefore(LocalDate.now(clock).minusDays(1)) ? pastTtlNanos : recentTtlNanos;
+    synchronized (cache) {
+      cache.put(key, new Entry(value, System.nanoTime() + ttl));
+    }
+  }
+
+  public Stats stats() {
+    synchronized (cache) {
+      return new Stats(hits.get(), misses.get(), staleHits.get(), evictions.get(), cache.size());
+    }
+  }
+}
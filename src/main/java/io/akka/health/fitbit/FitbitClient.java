@@ -2,139 +2,341 @@ package io.akka.health.fitbit;
 
 import akka.http.javadsl.model.headers.HttpCredentials;
 import akka.javasdk.http.HttpClient;
+import akka.javasdk.http.StrictResponse;
+import akka.util.ByteString;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.akka.health.fitbit.domain.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 
 public class FitbitClient {
     private static final String API_BASE_URL = ""; // The base url is already passed into the FitbitClient in the Boostrap class
+    // The access token belongs to a single user, the API refers to it as "-"
+    private static final String CURRENT_USER = "-";
     private static final Logger logger = LoggerFactory.getLogger(FitbitClient.class);
 
     private final ObjectMapper objectMapper;
     private final FitbitParser parser;
     private final HttpClient httpClient;
+    private final FitbitCache cache;
+    private final FitbitRateLimiter rateLimiter;
+    private final RateLimitSettings rateLimitSettings;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalescedRequests = new LongAdder();
 
     private String accessToken;
     private String codeVerifier;
 
-    public FitbitClient(HttpClient httpClient) {
+    /**
+     * How requests behave when the Fitbit request budget is exhausted.
+     *
+     * @param maxRetries number of retries after a 429 response
+     * @param maxBackoff longest time to wait before a retry, longer Retry-After values are not waited for
+     * @param serveStale whether an expired cached response is returned instead of failing
+     */
+    public record RateLimitSettings(int maxRetries, Duration maxBackoff, boolean serveStale) {}
+
+    public FitbitClient(HttpClient httpClient, FitbitCache cache, FitbitRateLimiter rateLimiter, RateLimitSettings rateLimitSettings) {
         this.objectMapper = new ObjectMapper();
         this.parser = new FitbitParser();
         this.httpClient = httpClient;
+        this.cache = cache;
+        this.rateLimiter = rateLimiter;
+        this.rateLimitSettings = rateLimitSettings;
+    }
+
+    public FitbitCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Number of requests that were served by joining an identical request already in flight.
+     */
+    public long coalescedRequests() {
+        return coalescedRequests.sum();
     }
 
     public HeartRateData getHeartRateByDate(LocalDate date) {
-        String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String url = API_BASE_URL + "/1/user/-/activities/heart/date/" + dateStr + "/1d.json";
+        return get(heartRateUrl(date), date, "heart rate data", parser::parseHeartRateData);
+    }
 
-        var response = httpClient
-                .GET(url)
-                .addCredentials(HttpCredentials.createOAuth2BearerToken(accessToken))
-                .invoke();
+    public CompletionStage<HeartRateData> getHeartRateByDateAsync(LocalDate date) {
+        return getAsync(heartRateUrl(date), date, "heart rate data", parser::parseHeartRateData);
+    }
 
-        if (response.status().intValue() == 200) {
-            try {
-                return parser.parseHeartRateData(response.body().utf8String());
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to parse heart rate data", e);
-            }
-        } else {
-            throw new RuntimeException("Failed to get heart rate data: " + response.status() + " - " + response.body().utf8String());
+    public ActiveZoneMinutesData getActiveZoneMinutesByDate(LocalDate date) {
+        return get(activeZoneMinutesUrl(date, date), date, "Active Zone Minutes data", parser::parseActiveZoneMinutesData);
+    }
+
+    public CompletionStage<ActiveZoneMinutesData> getActiveZoneMinutesByDateAsync(LocalDate date) {
+        return getAsync(activeZoneMinutesUrl(date, date), date, "Active Zone Minutes data", parser::parseActiveZoneMinutesData);
+    }
+
+    public ActiveZoneMinutesData getActiveZoneMinutesByDateRange(LocalDate startDate, LocalDate endDate) {
+        return get(activeZoneMinutesUrl(startDate, endDate), endDate, "Active Zone Minutes data", parser::parseActiveZoneMinutesData);
+    }
+
+    public CompletionStage<ActiveZoneMinutesData> getActiveZoneMinutesByDateRangeAsync(LocalDate startDate, LocalDate endDate) {
+        return getAsync(activeZoneMinutesUrl(startDate, endDate), endDate, "Active Zone Minutes data", parser::parseActiveZoneMinutesData);
+    }
+
+    public SleepLogData getSleepLogByDate(LocalDate date) {
+        return get(sleepLogUrl(date), date, "sleep log data", parser::parseSleepLogData);
+    }
+
+    public CompletionStage<SleepLogData> getSleepLogByDateAsync(LocalDate date) {
+        return getAsync(sleepLogUrl(date), date, "sleep log data", parser::parseSleepLogData);
+    }
+
+    public WeightLogData getWeightLogByDate(LocalDate date) {
+        return get(weightLogUrl(date), date, "weight log data", parser::parseWeightLogData);
+    }
+
+    public CompletionStage<WeightLogData> getWeightLogByDateAsync(LocalDate date) {
+        return getAsync(weightLogUrl(date), date, "weight log data", parser::parseWeightLogData);
+    }
+
+    public DailyActivitySummary getDailyActivitySummary(LocalDate date) {
+        return get(dailyActivitySummaryUrl(date), date, "daily activity summary", parser::parseDailyActivitySummary);
+    }
+
+    public CompletionStage<DailyActivitySummary> getDailyActivitySummaryAsync(LocalDate date) {
+        return getAsync(dailyActivitySummaryUrl(date), date, "daily activity summary", parser::parseDailyActivitySummary);
+    }
+
+    /**
+     * Gets the first page of logged activities starting at the given date, sorted ascending by start time.
+     * The Fitbit API returns at most 100 activities per page. The following pages are requested with
+     * {@link #getActivityLogListPage} and the {@code pagination.next} link of the previous page, since the
+     * endpoint does not accept an offset other than 0.
+     */
+    public ActivityLogList getActivityLogList(LocalDate afterDate, int limit) {
+        return get(activityLogListUrl(afterDate, limit), LocalDate.now(), "activity log list", parser::parseActivityLogList);
+    }
+
+    public CompletionStage<ActivityLogList> getActivityLogListAsync(LocalDate afterDate, int limit) {
+        return getAsync(activityLogListUrl(afterDate, limit), LocalDate.now(), "activity log list", parser::parseActivityLogList);
+    }
+
+    /**
+     * Gets the page of logged activities that a {@code pagination.next} link points to.
+     */
+    public ActivityLogList getActivityLogListPage(String next) {
+        return get(nextPageUrl(next), LocalDate.now(), "activity log list", parser::parseActivityLogList);
+    }
+
+    private static String heartRateUrl(LocalDate date) {
+        return API_BASE_URL + "/1/user/-/activities/heart/date/" + format(date) + "/1d.json";
+    }
+
+    private static String activeZoneMinutesUrl(LocalDate startDate, LocalDate endDate) {
+        // the single day endpoint uses the "1d" period instead of an end date
+        String end = startDate.equals(endDate) ? "1d" : format(endDate);
+        return API_BASE_URL + "/1/user/-/activities/active-zone-minutes/date/" + format(startDate) + "/" + end + ".json";
+    }
+
+    private static String sleepLogUrl(LocalDate date) {
+        return API_BASE_URL + "/1.2/user/-/sleep/date/" + format(date) + ".json";
+    }
+
+    private static String weightLogUrl(LocalDate date) {
+        return API_BASE_URL + "/1/user/-/body/log/weight/date/" + format(date) + ".json";
+    }
+
+    private static String dailyActivitySummaryUrl(LocalDate date) {
+        return API_BASE_URL + "/1/user/-/activities/date/" + format(date) + ".json";
+    }
+
+    private static String activityLogListUrl(LocalDate afterDate, int limit) {
+        return API_BASE_URL + "/1/user/-/activities/list.json?afterDate=" + format(afterDate)
+                + "&sort=asc&offset=0&limit=" + limit;
+    }
+
+    /**
+     * The next link is an absolute URL of the Fitbit API, while requests are made relative to the base URL of the
+     * HTTP client. Links to other hosts are rejected, so that the access token is not sent elsewhere.
+     */
+    private static String nextPageUrl(String next) {
+        var uri = URI.create(next);
+        if (uri.getHost() != null && !uri.getHost().equals("api.fitbit.com")) {
+            throw new IllegalArgumentException("Unexpected Fitbit pagination link: " + next);
         }
+        return API_BASE_URL + uri.getRawPath() + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
     }
 
-    public ActiveZoneMinutesData getActiveZoneMinutesByDate(LocalDate date) {
-        String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String url = API_BASE_URL + "/1/user/-/activities/active-zone-minutes/date/" + dateStr + "/1d.json";
+    private static String format(LocalDate date) {
+        return date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+    }
 
-        var response = httpClient
-                .GET(url)
-                .addCredentials(HttpCredentials.createOAuth2BearerToken(accessToken))
-                .invoke();
+    @FunctionalInterface
+    private interface BodyParser<T> {
+        T parse(byte[] json) throws Exception;
+    }
 
-        if (response.status().intValue() == 200) {
-            try {
-                return parser.parseActiveZoneMinutesData(response.body().utf8String());
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to parse Active Zone Minutes data", e);
+    /**
+     * @param latestDate the most recent date covered by the response, used for the cache expiry
+     */
+    private <T> T get(String url, LocalDate latestDate, String dataName, BodyParser<T> bodyParser) {
+        try {
+            return getAsync(url, latestDate, dataName, bodyParser).toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
-        } else {
-            throw new RuntimeException("Failed to get Active Zone Minutes data: " + response.status() + " - " + response.body().utf8String());
+            throw e;
         }
     }
 
-    public SleepLogData getSleepLogByDate(LocalDate date) {
-        String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String url = API_BASE_URL + "/1.2/user/-/sleep/date/" + dateStr + ".json";
+    /**
+     * Serves the response from the cache, or joins a request for the same key that is already in flight,
+     * so that concurrent callers share a single HTTP call and parsed result.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletionStage<T> getAsync(String url, LocalDate latestDate, String dataName, BodyParser<T> bodyParser) {
+        String key = FitbitCache.key(CURRENT_USER, url);
+        T cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
 
-        var response = httpClient
-                .GET(url)
-                .addCredentials(HttpCredentials.createOAuth2BearerToken(accessToken))
-                .invoke();
+        var promise = new CompletableFuture<Object>();
+        var existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            coalescedRequests.increment();
+            return (CompletionStage<T>) existing;
+        }
 
-        if (response.status().intValue() == 200) {
-            try {
-                return parser.parseSleepLogData(response.body().utf8String());
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to parse sleep log data", e);
-            }
-        } else {
-            throw new RuntimeException("Failed to get sleep log data: " + response.status() + " - " + response.body().utf8String());
+        CompletionStage<T> fetched;
+        try {
+            fetched = fetch(key, url, latestDate, dataName, bodyParser, 0);
+        } catch (RuntimeException e) {
+            // a failure before the request was sent must not leave the promise in flight forever
+            inFlight.remove(key, promise);
+            promise.completeExceptionally(e);
+            return (CompletionStage<T>) promise;
         }
+        fetched
+                .whenComplete((result, error) -> {
+                    // remove only after the result is cached, so later callers find it there
+                    inFlight.remove(key, promise);
+                    if (error != null) {
+                        promise.completeExceptionally(error);
+                    } else {
+                        promise.complete(result);
+                    }
+                });
+        return (CompletionStage<T>) promise;
     }
 
-    public WeightLogData getWeightLogByDate(LocalDate date) {
-        String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String url = API_BASE_URL + "/1/user/-/body/log/weight/date/" + dateStr + ".json";
+    private <T> CompletionStage<T> fetch(String key, String url, LocalDate latestDate, String dataName, BodyParser<T> bodyParser, int attempt) {
+        // retries already waited for the delay the API asked for and are not limited again
+        if (attempt == 0) {
+            var wait = rateLimiter.tryAcquire(CURRENT_USER);
+            if (wait.isPresent()) {
+                return staleOrFail(key, dataName, wait.get());
+            }
+        }
 
-        var response = httpClient
+        return httpClient
                 .GET(url)
                 .addCredentials(HttpCredentials.createOAuth2BearerToken(accessToken))
-                .invoke();
+                .invokeAsync()
+                .thenCompose(response -> {
+                    updateRateLimit(response);
+
+                    if (response.status().intValue() == 429) {
+                        Duration retryAfter = retryAfter(response, attempt);
+                        rateLimiter.block(CURRENT_USER, retryAfter);
+                        if (attempt < rateLimitSettings.maxRetries() && retryAfter.compareTo(rateLimitSettings.maxBackoff()) <= 0) {
+                            logger.warn("Fitbit rate limit reached while getting {}, retrying in {}", dataName, retryAfter);
+                            var delayed = CompletableFuture.delayedExecutor(retryAfter.toMillis(), TimeUnit.MILLISECONDS);
+                            return CompletableFuture.supplyAsync(() -> null, delayed)
+                                    .thenCompose(__ -> fetch(key, url, latestDate, dataName, bodyParser, attempt + 1));
+                        }
+                        return staleOrFail(key, dataName, retryAfter);
+                    }
+
+                    T result = handleResponse(response, dataName, bodyParser);
+                    cache.put(key, result, latestDate);
+                    return CompletableFuture.completedFuture(result);
+                });
+    }
 
-        if (response.status().intValue() == 200) {
-            try {
-                return parser.parseWeightLogData(response.body().utf8String());
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to parse weight log data", e);
+    private <T> CompletionStage<T> staleOrFail(String key, String dataName, Duration retryAfter) {
+        if (rateLimitSettings.serveStale()) {
+            T stale = cache.getStale(key);
+            if (stale != null) {
+                logger.info("Fitbit rate limit reached, serving cached {}", dataName);
+                return CompletableFuture.completedFuture(stale);
             }
-        } else {
-            throw new RuntimeException("Failed to get weight log data: " + response.status() + " - " + response.body().utf8String());
         }
+        return CompletableFuture.failedFuture(new FitbitRateLimitException(dataName, retryAfter));
     }
 
-    public DailyActivitySummary getDailyActivitySummary(LocalDate date) {
-        String dateStr = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String url = API_BASE_URL + "/1/user/-/activities/date/" + dateStr + ".json";
-
-        var response = httpClient
-                .GET(url)
-                .addCredentials(HttpCredentials.createOAuth2BearerToken(accessToken))
-                .invoke();
+    private void updateRateLimit(StrictResponse<ByteString> response) {
+        var remaining = response.httpResponse().getHeader("Fitbit-Rate-Limit-Remaining");
+        var reset = response.httpResponse().getHeader("Fitbit-Rate-Limit-Reset");
+        if (remaining.isPresent() && reset.isPresent()) {
+            try {
+                rateLimiter.update(CURRENT_USER,
+                        Integer.parseInt(remaining.get().value().trim()),
+                        Long.parseLong(reset.get().value().trim()));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring malformed Fitbit rate limit headers", e);
+            }
+        }
+    }
 
-        logger.info("Response: {}", response.body().utf8String());
-        logger.info("Status: {}", response.status().intValue());
+    /**
+     * Delay requested by the Retry-After header, or an exponential backoff (1s, 2s, 4s, ...) if it is missing.
+     */
+    private Duration retryAfter(StrictResponse<ByteString> response, int attempt) {
+        var header = response.httpResponse().getHeader("Retry-After");
+        if (header.isPresent()) {
+            try {
+                return Duration.ofSeconds(Long.parseLong(header.get().value().trim()));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring malformed Retry-After header", e);
+            }
+        }
+        return Duration.ofSeconds(1L << Math.min(attempt, 10));
+    }
 
+    private <T> T handleResponse(StrictResponse<ByteString> response, String dataName, BodyParser<T> bodyParser) {
+        logger.debug("Fetched {}: status {}", dataName, response.status().intValue());
 
         if (response.status().intValue() == 200) {
             try {
-                return parser.parseDailyActivitySummary(response.body().utf8String());
+                long start = System.nanoTime();
+                // parse straight from the response bytes, without decoding the body into a String
+                T result = bodyParser.parse(response.body().toArrayUnsafe());
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Parsed {} ({} bytes) in {} µs", dataName, response.body().size(), (System.nanoTime() - start) / 1000);
+                }
+                return result;
             } catch (Exception e) {
-                throw new RuntimeException("Failed to parse daily activity summary", e);
+                throw new RuntimeException("Failed to parse " + dataName, e);
             }
         } else {
-            throw new RuntimeException("Failed to get daily activity summary: " + response.status() + " - " + response.body().utf8String());
+            throw new RuntimeException("Failed to get " + dataName + ": " + response.status() + " - " + response.body().utf8String());
         }
     }
 
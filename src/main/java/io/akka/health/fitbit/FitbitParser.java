@@ -1,15 +1,31 @@
 package io.akka.health.fitbit;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.akka.health.fitbit.domain.*;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Parser for Fitbit API responses.
+ * <p>
+ * Responses are data-bound straight from the response bytes with pre-built {@link ObjectReader}s, without
+ * decoding them into a String first. The domain records only declare the fields that are read, so large parts
+ * of the payloads, like the 30-second sleep stage data and the intraday Active Zone Minutes, are skipped as
+ * unknown properties instead of being bound. The intraday heart rate is read into a columnar
+ * {@link IntradayHeartRateSeries}.
  */
 public class FitbitParser {
     private final ObjectMapper objectMapper;
+    private final ObjectReader heartRateReader;
+    private final ObjectReader activeZoneMinutesReader;
+    private final ObjectReader sleepLogReader;
+    private final ObjectReader weightLogReader;
+    private final ObjectReader dailyActivitySummaryReader;
+    private final ObjectReader activityLogListReader;
 
     /**
      * Creates a new FitbitParser.
@@ -18,8 +34,26 @@ public class FitbitParser {
         this.objectMapper = new ObjectMapper();
         // Configure ObjectMapper for handling Java 8 date/time types
         objectMapper.registerModule(new JavaTimeModule());
-        // Configure ObjectMapper to ignore unknown properties
+        // Configure ObjectMapper to ignore unknown properties, this also skips the parts of the payloads that are never read
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        this.heartRateReader = objectMapper.readerFor(HeartRateData.class);
+        this.activeZoneMinutesReader = objectMapper.readerFor(ActiveZoneMinutesData.class);
+        this.sleepLogReader = objectMapper.readerFor(SleepLogData.class);
+        this.weightLogReader = objectMapper.readerFor(WeightLogData.class);
+        this.dailyActivitySummaryReader = objectMapper.readerFor(DailyActivitySummary.class);
+        this.activityLogListReader = objectMapper.readerFor(ActivityLogList.class);
+    }
+
+    /**
+     * Parses heart rate data from JSON.
+     *
+     * @param json The JSON bytes to parse.
+     * @return The parsed heart rate data.
+     * @throws Exception If parsing fails.
+     */
+    public HeartRateData parseHeartRateData(byte[] json) throws Exception {
+        return parse(json, heartRateReader);
     }
 
     /**
@@ -30,7 +64,18 @@ public class FitbitParser {
      * @throws Exception If parsing fails.
      */
     public HeartRateData parseHeartRateData(String json) throws Exception {
-        return objectMapper.readValue(json, HeartRateData.class);
+        return parseHeartRateData(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses active zone minutes data from JSON.
+     *
+     * @param json The JSON bytes to parse.
+     * @return The parsed active zone minutes data.
+     * @throws Exception If parsing fails.
+     */
+    public ActiveZoneMinutesData parseActiveZoneMinutesData(byte[] json) throws Exception {
+        return parse(json, activeZoneMinutesReader);
     }
 
     /**
@@ -41,7 +86,18 @@ public class FitbitParser {
      * @throws Exception If parsing fails.
      */
     public ActiveZoneMinutesData parseActiveZoneMinutesData(String json) throws Exception {
-        return objectMapper.readValue(json, ActiveZoneMinutesData.class);
+        return parseActiveZoneMinutesData(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses sleep log data from JSON.
+     *
+     * @param json The JSON bytes to parse.
+     * @return The parsed sleep log data.
+     * @throws Exception If parsing fails.
+     */
+    public SleepLogData parseSleepLogData(byte[] json) throws Exception {
+        return parse(json, sleepLogReader);
     }
 
     /**
@@ -52,7 +108,18 @@ public class FitbitParser {
      * @throws Exception If parsing fails.
      */
     public SleepLogData parseSleepLogData(String json) throws Exception {
-        return objectMapper.readValue(json, SleepLogData.class);
+        return parseSleepLogData(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses weight log data from JSON.
+     *
+     * @param json The JSON bytes to parse.
+     * @return The parsed weight log data.
+     * @throws Exception If parsing fails.
+     */
+    public WeightLogData parseWeightLogData(byte[] json) throws Exception {
+        return parse(json, weightLogReader);
     }
 
     /**
@@ -63,7 +130,18 @@ public class FitbitParser {
      * @throws Exception If parsing fails.
      */
     public WeightLogData parseWeightLogData(String json) throws Exception {
-        return objectMapper.readValue(json, WeightLogData.class);
+        return parseWeightLogData(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses daily activity summary data from JSON.
+     *
+     * @param json The JSON bytes to parse.
+     * @return The parsed daily activity summary data.
+     * @throws Exception If parsing fails.
+     */
+    public DailyActivitySummary parseDailyActivitySummary(byte[] json) throws Exception {
+        return parse(json, dailyActivitySummaryReader);
     }
 
     /**
@@ -74,6 +152,34 @@ public class FitbitParser {
      * @throws Exception If parsing fails.
      */
     public DailyActivitySummary parseDailyActivitySummary(String json) throws Exception {
-        return objectMapper.readValue(json, DailyActivitySummary.class);
+        return parseDailyActivitySummary(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a page of the activity log list from JSON.
+     *
+     * @param json The JSON bytes to parse.
+     * @return The parsed activity log list.
+     * @throws Exception If parsing fails.
+     */
+    public ActivityLogList parseActivityLogList(byte[] json) throws Exception {
+        return parse(json, activityLogListReader);
+    }
+
+    /**
+     * Parses a page of the activity log list from JSON.
+     *
+     * @param json The JSON string to parse.
+     * @return The parsed activity log list.
+     * @throws Exception If parsing fails.
+     */
+    public ActivityLogList parseActivityLogList(String json) throws Exception {
+        return parseActivityLogList(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private <T> T parse(byte[] json, ObjectReader reader) throws Exception {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            return reader.readValue(parser);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package io.akka.health.fitbit;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a Fitbit request cannot be made because the user's request budget is exhausted
+ * and no cached response is available.
+ */
+public class FitbitRateLimitException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public FitbitRateLimitException(String dataName, Duration retryAfter) {
+    super("Fitbit rate limit reached while getting " + dataName + ", retry in " + retryAfter.toSeconds() + "s");
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
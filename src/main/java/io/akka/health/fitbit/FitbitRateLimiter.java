@@ -0,0 +1,105 @@
+package io.akka.health.fitbit;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token bucket per Fitbit user, sized to the hourly request budget of the Fitbit API.
+ * <p>
+ * The bucket refills continuously and is corrected with the {@code Fitbit-Rate-Limit-Remaining} and
+ * {@code Fitbit-Rate-Limit-Reset} response headers, so that requests made outside this service instance
+ * are accounted for as well.
+ */
+public class FitbitRateLimiter {
+
+  private static final class Bucket {
+    private double tokens;
+    private long lastRefillNanos;
+    // when the API reported an exhausted budget, no request is made before this point in time
+    private long blockedUntilNanos;
+
+    private Bucket(double tokens, long now) {
+      this.tokens = tokens;
+      this.lastRefillNanos = now;
+      this.blockedUntilNanos = now;
+    }
+  }
+
+  private final int requestsPerHour;
+  private final double tokensPerNano;
+  private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+  public FitbitRateLimiter(int requestsPerHour) {
+    this.requestsPerHour = requestsPerHour;
+    this.tokensPerNano = requestsPerHour / (double) Duration.ofHours(1).toNanos();
+  }
+
+  /**
+   * Takes a token for the user.
+   *
+   * @return empty if a request may be made now, otherwise the time until the next token is available
+   */
+  public Optional<Duration> tryAcquire(String user) {
+    long now = System.nanoTime();
+    var bucket = bucket(user, now);
+    synchronized (bucket) {
+      if (bucket.blockedUntilNanos - now > 0) {
+        return Optional.of(Duration.ofNanos(bucket.blockedUntilNanos - now));
+      }
+      refill(bucket, now);
+      if (bucket.tokens >= 1) {
+        bucket.tokens -= 1;
+        return Optional.empty();
+      }
+      return Optional.of(Duration.ofNanos((long) ((1 - bucket.tokens) / tokensPerNano)));
+    }
+  }
+
+  /**
+   * Aligns the bucket with the budget reported by the Fitbit API.
+   *
+   * @param remaining      value of the {@code Fitbit-Rate-Limit-Remaining} header
+   * @param untilResetSecs value of the {@code Fitbit-Rate-Limit-Reset} header
+   */
+  public void update(String user, int remaining, long untilResetSecs) {
+    long now = System.nanoTime();
+    var bucket = bucket(user, now);
+    synchronized (bucket) {
+      refill(bucket, now);
+      bucket.tokens = Math.min(bucket.tokens, remaining);
+      if (remaining <= 0) {
+        blockFor(bucket, now, Duration.ofSeconds(untilResetSecs));
+      }
+    }
+  }
+
+  /**
+   * Stops requests for the user until the given delay has passed, e.g. after a 429 response.
+   */
+  public void block(String user, Duration delay) {
+    long now = System.nanoTime();
+    var bucket = bucket(user, now);
+    synchronized (bucket) {
+      bucket.tokens = 0;
+      blockFor(bucket, now, delay);
+    }
+  }
+
+  private Bucket bucket(String user, long now) {
+    return buckets.computeIfAbsent(user, __ -> new Bucket(requestsPerHour, now));
+  }
+
+  private void blockFor(Bucket bucket, long now, Duration delay) {
+    bucket.blockedUntilNanos = Math.max(bucket.blockedUntilNanos, now + delay.toNanos());
+    bucket.lastRefillNanos = Math.max(bucket.lastRefillNanos, bucket.blockedUntilNanos);
+  }
+
+  private void refill(Bucket bucket, long now) {
+    long elapsed = now - bucket.lastRefillNanos;
+    if (elapsed > 0) {
+      bucket.tokens = Math.min(requestsPerHour, bucket.tokens + elapsed * tokensPerNano);
+      bucket.lastRefillNanos = now;
+    }
+  }
+}
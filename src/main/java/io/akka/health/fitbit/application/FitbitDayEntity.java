@@ -0,0 +1,45 @@
+package io.akka.health.fitbit.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.eventsourcedentity.EventSourcedEntity;
+import io.akka.health.fitbit.domain.FitbitDay;
+
+import java.time.LocalDate;
+
+/**
+ * Holds the synced Fitbit metrics of one user for one day.
+ */
+@ComponentId("fitbit-day")
+public class FitbitDayEntity extends EventSourcedEntity<FitbitDay, FitbitDayEntity.Event> {
+
+  public sealed interface Event {
+    record DaySynced(FitbitDay day) implements Event {}
+  }
+
+  public static String entityId(String userId, LocalDate date) {
+    return userId + ":" + date;
+  }
+
+  public Effect<Done> sync(FitbitDay day) {
+    // only persist when the data changed since the last sync
+    if (day.equals(currentState())) {
+      return effects().reply(Done.getInstance());
+    }
+
+    return effects()
+        .persist(new Event.DaySynced(day))
+        .thenReply(newState -> Done.getInstance());
+  }
+
+  public ReadOnlyEffect<FitbitDay> getDay() {
+    return effects().reply(currentState());
+  }
+
+  @Override
+  public FitbitDay applyEvent(Event event) {
+    return switch (event) {
+      case Event.DaySynced synced -> synced.day();
+    };
+  }
+}
@@ -0,0 +1,39 @@
+package io.akka.health.fitbit.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.annotations.Query;
+import akka.javasdk.annotations.Table;
+import akka.javasdk.view.TableUpdater;
+import akka.javasdk.view.View;
+import io.akka.health.fitbit.domain.FitbitDay;
+
+import java.util.List;
+
+@ComponentId("fitbit-day-view")
+public class FitbitDayView extends View {
+
+    public record FitbitDays(List<FitbitDay> days) {}
+
+    /**
+     * @param startDate first ISO date of the range, inclusive
+     * @param endDate   last ISO date of the range, inclusive
+     */
+    public record DayRangeRequest(String userId, String startDate, String endDate) {}
+
+    @Query("SELECT collect(*) as days FROM fitbit_days " +
+            "WHERE userId = :userId AND date >= :startDate AND date <= :endDate")
+    public QueryEffect<FitbitDays> getDays(DayRangeRequest request) {
+        return queryResult();
+    }
+
+    @Table("fitbit_days")
+    @Consume.FromEventSourcedEntity(FitbitDayEntity.class)
+    public static class FitbitDayUpdater extends TableUpdater<FitbitDay> {
+        public Effect<FitbitDay> onEvent(FitbitDayEntity.Event event) {
+            return switch (event) {
+                case FitbitDayEntity.Event.DaySynced synced -> effects().updateRow(synced.day());
+            };
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.akka.health.fitbit.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.timedaction.TimedAction;
+import com.typesafe.config.Config;
+import io.akka.health.fitbit.FitbitClient;
+import io.akka.health.fitbit.domain.FitbitDay;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Periodically pulls the daily Fitbit metrics of the owner of the configured Fitbit access token into
+ * {@link FitbitDayEntity},
+ * so that the agent tools can answer from {@link FitbitDayView} instead of calling the Fitbit API.
+ * <p>
+ * The service has a single Fitbit access token, so only the data of its owner, the user configured in
+ * {@code health-agent.fitbit.sync.user-id}, is synced. Each run syncs the last
+ * {@code health-agent.fitbit.sync.days} completed days, up to yesterday, one day after the other, and schedules the
+ * next run.
+ * Days that were already fetched are usually served by the Fitbit response cache.
+ */
+@ComponentId("fitbit-sync")
+public class FitbitSyncAction extends TimedAction {
+
+  public static final String TIMER_NAME = "fitbit-sync";
+
+  private static final Logger logger = LoggerFactory.getLogger(FitbitSyncAction.class);
+
+  private final ComponentClient componentClient;
+  private final FitbitClient fitbitClient;
+  private final String userId;
+  private final int days;
+  private final Duration interval;
+
+  public FitbitSyncAction(ComponentClient componentClient, FitbitClient fitbitClient, Config config) {
+    this.componentClient = componentClient;
+    this.fitbitClient = fitbitClient;
+    this.userId = config.getString("health-agent.fitbit.sync.user-id");
+    this.days = config.getInt("health-agent.fitbit.sync.days");
+    this.interval = config.getDuration("health-agent.fitbit.sync.interval");
+  }
+
+  public Effect sync() {
+    // schedule the next run first, so that a failing run does not stop the sync
+    timers().createSingleTimer(
+        TIMER_NAME,
+        interval,
+        componentClient.forTimedAction().method(FitbitSyncAction::sync).deferred());
+
+    LocalDate today = LocalDate.now();
+    CompletionStage<Done> run = CompletableFuture.completedFuture(Done.getInstance());
+    // today's data changes all day and is not read from the synced days, so only completed days are synced
+    for (int i = days; i >= 1; i--) {
+      LocalDate date = today.minusDays(i);
+      run = run.thenCompose(__ -> syncDay(date));
+    }
+
+    return effects().asyncDone(run.thenApply(done -> {
+      logger.info("Synced Fitbit data of user {} for the last {} completed days", userId, days);
+      return done;
+    }));
+  }
+
+  private CompletionStage<Done> syncDay(LocalDate date) {
+    return fetchDay(userId, date)
+        .thenCompose(day -> componentClient.forEventSourcedEntity(FitbitDayEntity.entityId(userId, date))
+            .method(FitbitDayEntity::sync)
+            .invokeAsync(day))
+        .exceptionally(e -> {
+          // a failing day does not stop the other days from being synced
+          logger.warn("Failed to sync Fitbit data of user {} for {}", userId, date, e);
+          return Done.getInstance();
+        });
+  }
+
+  private CompletionStage<FitbitDay> fetchDay(String userId, LocalDate date) {
+    var heartRate = fitbitClient.getHeartRateByDateAsync(date);
+    var sleep = fitbitClient.getSleepLogByDateAsync(date);
+    var activity = fitbitClient.getDailyActivitySummaryAsync(date);
+    var azm = fitbitClient.getActiveZoneMinutesByDateAsync(date);
+    var weight = fitbitClient.getWeightLogByDateAsync(date);
+
+    return heartRate.thenCompose(hr ->
+        sleep.thenCompose(sl ->
+            activity.thenCompose(act ->
+                azm.thenCompose(az ->
+                    weight.thenApply(w -> new FitbitDay(
+                        userId,
+                        date.toString(),
+                        FitbitDay.restingHeartRateOf(hr),
+                        FitbitDay.minHeartRateOf(hr),
+                        FitbitDay.maxHeartRateOf(hr),
+                        FitbitDay.sleepHoursOf(sl),
+                        FitbitDay.remSleepMinutesOf(sl),
+                        FitbitDay.stepsOf(act),
+                        FitbitDay.activeZoneMinutesOf(az),
+                        FitbitDay.weightOf(w)))))));
+  }
+}
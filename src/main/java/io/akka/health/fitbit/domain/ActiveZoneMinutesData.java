@@ -6,11 +6,11 @@ import java.time.LocalDate;
 import java.util.List;
 
 /**
- * Record class representing active zone minutes data from Fitbit API.
+ * Record class representing active zone minutes data from Fitbit API. Only the daily values are read;
+ * the intraday data ({@code activities-active-zone-minutes-intraday}) is skipped when parsing.
  */
 public record ActiveZoneMinutesData(
-    @JsonProperty("activities-active-zone-minutes") List<DailyActiveZoneMinutes> activitiesActiveZoneMinutes,
-    @JsonProperty("activities-active-zone-minutes-intraday") IntradayActiveZoneMinutes activitiesActiveZoneMinutesIntraday
+    @JsonProperty("activities-active-zone-minutes") List<DailyActiveZoneMinutes> activitiesActiveZoneMinutes
 ) {
     /**
      * Record representing daily active zone minutes data.
@@ -29,21 +29,4 @@ public record ActiveZoneMinutesData(
         @JsonProperty("cardioActiveZoneMinutes") Integer cardioActiveZoneMinutes,
         @JsonProperty("peakActiveZoneMinutes") Integer peakActiveZoneMinutes
     ) {}
-
-    /**
-     * Record representing intraday active zone minutes data.
-     */
-    public record IntradayActiveZoneMinutes(
-        @JsonProperty("dataset") List<ActiveZoneMinutesDataPoint> dataset,
-        @JsonProperty("datasetInterval") Integer datasetInterval,
-        @JsonProperty("datasetType") String datasetType
-    ) {}
-
-    /**
-     * Record representing a single active zone minutes data point.
-     */
-    public record ActiveZoneMinutesDataPoint(
-        @JsonProperty("time") String time,
-        @JsonProperty("value") ActiveZoneMinutesValue value
-    ) {}
 }
\ No newline at end of file
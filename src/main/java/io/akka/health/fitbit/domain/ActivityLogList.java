@@ -0,0 +1,72 @@
+package io.akka.health.fitbit.domain;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Record class representing a page of the activity log list from Fitbit API.
+ */
+public record ActivityLogList(
+    @JsonProperty("activities") List<ActivityLog> activities,
+    @JsonProperty("pagination") Pagination pagination
+) {
+    /**
+     * Record representing a logged activity.
+     */
+    public record ActivityLog(
+        @JsonProperty("activityName") String activityName,
+        @JsonProperty("activityTypeId") Long activityTypeId,
+        @JsonProperty("activityParentId") Long activityParentId,
+        @JsonProperty("activityParentName") String activityParentName,
+        @JsonProperty("calories") Integer calories,
+        @JsonProperty("duration") Long duration,
+        @JsonProperty("hasActiveZoneMinutes") Boolean hasActiveZoneMinutes,
+        @JsonProperty("logId") Long logId,
+        @JsonProperty("startTime") String startTime,
+        @JsonProperty("steps") Integer steps
+    ) {
+        /**
+         * The local date of the activity, taken from the ISO start time (e.g. "2025-04-26T12:08:00.000+02:00"),
+         * or null if the entry has no start time.
+         */
+        public LocalDate startDate() {
+            return startTime == null || startTime.length() < 10 ? null : LocalDate.parse(startTime.substring(0, 10));
+        }
+
+        /**
+         * Converts the log entry into the activity representation of the daily activity summary.
+         */
+        public DailyActivitySummary.Activity toActivity() {
+            return new DailyActivitySummary.Activity(
+                activityTypeId,
+                activityParentId,
+                activityParentName,
+                calories,
+                null,
+                duration,
+                hasActiveZoneMinutes,
+                startTime != null,
+                null,
+                null,
+                logId,
+                activityName,
+                startDate(),
+                startTime == null || startTime.length() < 16 ? null : startTime.substring(11, 16),
+                steps
+            );
+        }
+    }
+
+    /**
+     * Record representing the pagination information of the activity log list.
+     */
+    public record Pagination(
+        @JsonProperty("limit") Integer limit,
+        @JsonProperty("next") String next,
+        @JsonProperty("offset") Integer offset,
+        @JsonProperty("previous") String previous,
+        @JsonProperty("sort") String sort
+    ) {}
+}
@@ -0,0 +1,127 @@
+package io.akka.health.fitbit.domain;
+
+/**
+ * Daily Fitbit metrics of a user as stored by the background sync.
+ *
+ * @param userId             The unique identifier for the user.
+ * @param date               The ISO date (e.g. "2025-04-26") the metrics belong to.
+ * @param restingHeartRate   The resting heart rate in bpm, -1 if not available.
+ * @param minHeartRate       The lowest intraday heart rate in bpm, null if no intraday data is available.
+ * @param maxHeartRate       The highest intraday heart rate in bpm, null if no intraday data is available.
+ * @param sleepHours         The hours asleep.
+ * @param remSleepMinutes    The minutes of REM sleep.
+ * @param steps              The number of steps walked.
+ * @param activeZoneMinutes  The active zone minutes.
+ * @param weight             The last logged weight, null if none was logged.
+ */
+public record FitbitDay(
+        String userId,
+        String date,
+        Integer restingHeartRate,
+        Integer minHeartRate,
+        Integer maxHeartRate,
+        Double sleepHours,
+        Integer remSleepMinutes,
+        Integer steps,
+        Integer activeZoneMinutes,
+        Double weight) {
+
+    public static Integer restingHeartRateOf(HeartRateData data) {
+        if (data.activitiesHeart() == null || data.activitiesHeart().isEmpty() || data.activitiesHeart().getFirst().value().restingHeartRate() == null) {
+            return -1;
+        }
+        return data.activitiesHeart().getFirst().value().restingHeartRate();
+    }
+
+    public static Integer minHeartRateOf(HeartRateData data) {
+        var series = intraday(data);
+        return series.isEmpty() ? null : series.min();
+    }
+
+    public static Integer maxHeartRateOf(HeartRateData data) {
+        var series = intraday(data);
+        return series.isEmpty() ? null : series.max();
+    }
+
+    /**
+     * The intraday heart rate value that exceeded the range the most, or 0 if the range was never exceeded.
+     */
+    public static Integer mostExtremeHeartRateOf(HeartRateData data, int minThreshold, int maxThreshold) {
+        return intraday(data).mostExtreme(minThreshold, maxThreshold);
+    }
+
+    /**
+     * The stored heart rate value that exceeded the range the most, or 0 if the range was never exceeded.
+     * Only the daily minimum and maximum can be the most extreme value, so they are sufficient. The day does not
+     * keep when they occurred, so on a tie this returns the minimum, not the earlier of the two like
+     * {@link IntradayHeartRateSeries#mostExtreme} does.
+     */
+    public Integer mostExtremeHeartRate(int minThreshold, int maxThreshold) {
+        if (minHeartRate == null || maxHeartRate == null) {
+            return 0;
+        }
+        int below = minThreshold - minHeartRate;
+        int above = maxHeartRate - maxThreshold;
+        if (below <= 0 && above <= 0) {
+            return 0;
+        }
+        return below >= above ? minHeartRate : maxHeartRate;
+    }
+
+    public static Double sleepHoursOf(SleepLogData data) {
+        if (data.summary() != null && data.summary().totalMinutesAsleep() != null) {
+            return data.summary().totalMinutesAsleep() / 60.0;
+        } else {
+            return 0.0;
+        }
+    }
+
+    public static Integer remSleepMinutesOf(SleepLogData data) {
+        if (data.sleep() == null || data.sleep().isEmpty())
+            return 0;
+
+        int totalRemMinutes = 0;
+
+        for (SleepLogData.Sleep sleep : data.sleep()) {
+            if (sleep.levels() != null && sleep.levels().summary() != null && sleep.levels().summary().rem() != null && sleep.levels().summary().rem().minutes() != null) {
+                totalRemMinutes += sleep.levels().summary().rem().minutes();
+            }
+        }
+
+        return totalRemMinutes;
+    }
+
+    public static Integer stepsOf(DailyActivitySummary data) {
+        if (data.summary() != null && data.summary().steps() != null)
+            return data.summary().steps();
+        else
+            return 0;
+    }
+
+    public static Integer activeZoneMinutesOf(ActiveZoneMinutesData data) {
+        int totalActiveMinutes = 0;
+
+        if (data.activitiesActiveZoneMinutes() != null) {
+            for (ActiveZoneMinutesData.DailyActiveZoneMinutes day : data.activitiesActiveZoneMinutes()) {
+                if (day.value() != null && day.value().activeZoneMinutes() != null) {
+                    totalActiveMinutes += day.value().activeZoneMinutes();
+                }
+            }
+        }
+
+        return totalActiveMinutes;
+    }
+
+    public static Double weightOf(WeightLogData data) {
+        if (data.weight() == null || data.weight().isEmpty())
+            return null;
+        return data.weight().getLast().weight();
+    }
+
+    private static IntradayHeartRateSeries intraday(HeartRateData data) {
+        if (data.activitiesHeartIntraday() == null || data.activitiesHeartIntraday().dataset() == null) {
+            return IntradayHeartRateSeries.EMPTY;
+        }
+        return data.activitiesHeartIntraday().dataset();
+    }
+}
@@ -1,6 +1,7 @@
 package io.akka.health.fitbit.domain;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -42,18 +43,11 @@ public record HeartRateData(
 
     /**
      * Record representing intraday heart rate data.
+     * The data points are parsed directly into a columnar {@link IntradayHeartRateSeries}.
      */
     public record IntradayHeartRate(
-        @JsonProperty("dataset") List<HeartRateDataPoint> dataset,
+        @JsonProperty("dataset") @JsonDeserialize(using = IntradayHeartRateSeries.Deserializer.class) IntradayHeartRateSeries dataset,
         @JsonProperty("datasetInterval") Integer datasetInterval,
         @JsonProperty("datasetType") String datasetType
     ) {}
-
-    /**
-     * Record representing a single heart rate data point.
-     */
-    public record HeartRateDataPoint(
-        @JsonProperty("time") String time,
-        @JsonProperty("value") Integer value
-    ) {}
 }
\ No newline at end of file
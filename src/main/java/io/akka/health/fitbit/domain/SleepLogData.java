@@ -35,23 +35,13 @@ public record SleepLogData(
     ) {}
 
     /**
-     * Record representing sleep levels.
+     * Record representing sleep levels. Only the summary is read; the 30-second stage data
+     * ({@code data} and {@code shortData}) is skipped when parsing.
      */
     public record SleepLevels(
-        @JsonProperty("data") List<SleepLevelData> data,
-        @JsonProperty("shortData") List<SleepLevelData> shortData,
         @JsonProperty("summary") SleepLevelSummary summary
     ) {}
 
-    /**
-     * Record representing sleep level data.
-     */
-    public record SleepLevelData(
-        @JsonProperty("dateTime") LocalDateTime dateTime,
-        @JsonProperty("level") String level,
-        @JsonProperty("seconds") Integer seconds
-    ) {}
-
     /**
      * Record representing sleep level summary.
      */
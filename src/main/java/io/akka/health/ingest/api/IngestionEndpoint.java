@@ -1,20 +1,26 @@
 package io.akka.health.ingest.api;
 
 import com.mongodb.client.MongoClient;
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.mongodb.MongoDbEmbeddingStore;
 import io.akka.health.common.MongoDbUtils;
+import akka.Done;
+import akka.http.javadsl.model.HttpRequest;
 import akka.http.javadsl.model.HttpResponse;
 import akka.javasdk.annotations.Acl;
 import akka.javasdk.annotations.http.Post;
 import akka.javasdk.client.ComponentClient;
 import akka.javasdk.http.HttpResponses;
+import io.akka.health.agent.application.DataVersionEntity;
 import io.akka.health.ingest.application.SensorEntity;
 import io.akka.health.ingest.domain.Index;
 import io.akka.health.ingest.domain.MedicalRecord;
 import io.akka.health.ingest.domain.SensorData;
+import akka.stream.Materializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.concurrent.CompletionStage;
 
 @Acl(allow = @Acl.Matcher(principal = Acl.Principal.INTERNET))
@@ -27,10 +33,21 @@ public class IngestionEndpoint {
   private final Logger logger = LoggerFactory.getLogger(getClass());
   private final ComponentClient componentClient;
   private final MongoDbEmbeddingStore embeddingStore;
+  private final EmbeddingModel embeddingModel;
+  private final Materializer materializer;
+  private final SensorBatchIngestion batchIngestion;
 
-  public IngestionEndpoint(ComponentClient componentClient, MongoDbEmbeddingStore embeddingStore) {
+  // Largest single reading accepted in a batch
+  private static final int MAX_READING_BYTES = 64 * 1024;
+  // Readings persisted together, one multi-event effect per user within a chunk
+  private static final int BATCH_CHUNK_SIZE = 500;
+
+  public IngestionEndpoint(ComponentClient componentClient, MongoDbEmbeddingStore embeddingStore, EmbeddingModel embeddingModel, Materializer materializer) {
     this.componentClient = componentClient;
     this.embeddingStore = embeddingStore;
+    this.embeddingModel = embeddingModel;
+    this.materializer = materializer;
+    this.batchIngestion = new SensorBatchIngestion(this::persistReadings, MAX_READING_BYTES, BATCH_CHUNK_SIZE);
   }
 
   @Post("/sensor")
@@ -42,11 +59,50 @@ public class IngestionEndpoint {
             .thenApply(__ -> HttpResponses.accepted());
   }
 
+  /**
+   * Ingests many readings in one request, either as a JSON array or as a (chunked) NDJSON stream, see
+   * {@link SensorBatchIngestion}.
+   * <p>
+   * A malformed reading, or one without a userId, stops the batch with a 400, and a failed write with a 500.
+   * Both report how many readings were stored, the latter also the users whose readings could not be, so the
+   * client can resume the upload from there.
+   */
+  @Post("/sensor/batch")
+  public CompletionStage<HttpResponse> ingestSensorDataBatch(HttpRequest request) {
+    return batchIngestion.ingest(request.entity().getDataBytes(), materializer)
+            .thenApply(outcome -> switch (outcome) {
+              case SensorBatchIngestion.Outcome.Completed completed -> {
+                logger.info("Ingested batch of {} sensor readings", completed.stored());
+                yield HttpResponses.accepted();
+              }
+              case SensorBatchIngestion.Outcome.Rejected rejected -> {
+                logger.warn("Rejected sensor batch after {} stored readings: {}", rejected.stored(), rejected.reason());
+                yield HttpResponses.badRequest(rejected.reason() + ", " + rejected.stored() + " readings stored before it");
+              }
+              case SensorBatchIngestion.Outcome.Failed failed -> {
+                logger.error("Storing the sensor readings of {} failed", failed.failedUsers(), failed.cause());
+                yield HttpResponses.internalServerError("Storing the readings of users " + failed.failedUsers()
+                        + " among readings " + failed.firstReading() + " to " + failed.lastReading() + " failed, "
+                        + failed.stored() + " readings stored, none after reading " + failed.lastReading());
+              }
+            });
+  }
+
+  private CompletionStage<Done> persistReadings(String userId, List<SensorData> readings) {
+    return componentClient.forEventSourcedEntity(userId)
+            .method(SensorEntity::addDataBatch)
+            .invokeAsync(readings);
+  }
+
   @Post("/medical-record")
   public CompletionStage<HttpResponse> ingestMedicalRecord(IngestMedicalRecordRequest request) {
     logger.info("Received medical record for user {}: {}", request.userId, request.data);
-    Index index = new Index(embeddingStore);
+    Index index = new Index(embeddingModel, embeddingStore);
     return index.indexMedicalRecord(request.data)
+            // cached answers of the patient may depend on the medical records
+            .thenCompose(done -> componentClient.forKeyValueEntity(request.data.patientId())
+                    .method(DataVersionEntity::bump)
+                    .invokeAsync())
             .thenApply(done -> HttpResponses.accepted());
   }
 }
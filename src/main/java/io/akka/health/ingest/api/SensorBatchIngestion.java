@@ -0,0 +1,159 @@
+package io.akka.health.ingest.api;
+
+import akka.stream.Materializer;
+import akka.stream.javadsl.JsonFraming;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.akka.health.ingest.domain.SensorData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Streams a batch of sensor readings, either a JSON array or (chunked) NDJSON, into the per user stores.
+ * <p>
+ * Readings are framed and parsed as they arrive and persisted in chunks, one write per user within a chunk. A
+ * chunk is only pulled once the previous one has been persisted, so a slow store backpressures the client.
+ * <p>
+ * The batch stops at the first invalid reading, whose chunk is not persisted, or at the first chunk with a failed
+ * write. Only the readings of writes that succeeded are counted as stored.
+ */
+final class SensorBatchIngestion {
+
+  @FunctionalInterface
+  interface Writer {
+    CompletionStage<?> write(String userId, List<SensorData> readings);
+  }
+
+  sealed interface Outcome {
+    int stored();
+
+    record Completed(int stored) implements Outcome {}
+
+    /**
+     * @param reason which reading is invalid and why
+     */
+    record Rejected(int stored, String reason) implements Outcome {}
+
+    /**
+     * @param failedUsers  the users whose readings of the chunk could not be stored, the readings of the other
+     *                     users in the chunk were stored
+     * @param firstReading the position of the first reading of the chunk, counted from 1
+     * @param lastReading  the position of the last reading of the chunk
+     */
+    record Failed(int stored, List<String> failedUsers, int firstReading, int lastReading, Throwable cause)
+        implements Outcome {}
+  }
+
+  /**
+   * @param firstReading the position of the first reading of the chunk, counted from 1
+   */
+  private record ChunkResult(int stored, List<String> failedUsers, int firstReading, int lastReading, Throwable cause) {}
+
+  private static final class InvalidReadingException extends IllegalArgumentException {
+    InvalidReadingException(String message) {
+      super(message);
+    }
+  }
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  private final Writer writer;
+  private final int maxReadingBytes;
+  private final int chunkSize;
+
+  SensorBatchIngestion(Writer writer, int maxReadingBytes, int chunkSize) {
+    this.writer = writer;
+    this.maxReadingBytes = maxReadingBytes;
+    this.chunkSize = chunkSize;
+  }
+
+  CompletionStage<Outcome> ingest(Source<ByteString, ?> body, Materializer materializer) {
+    var received = new AtomicInteger();
+    var stored = new AtomicInteger();
+    return body
+        // JsonFraming emits the top-level objects of an array as well as of newline delimited JSON
+        .via(JsonFraming.objectScanner(maxReadingBytes))
+        .map(bytes -> parseReading(bytes.toArrayUnsafe(), received.incrementAndGet()))
+        .grouped(chunkSize)
+        .zipWithIndex()
+        // chunks are persisted one after another to keep the order of each user's readings
+        .mapAsync(1, chunk -> persistChunk(chunk.first(), (int) (chunk.second() * chunkSize) + 1))
+        .map(result -> {
+          stored.addAndGet(result.stored());
+          return result;
+        })
+        // stop after the first chunk with a failed write
+        .takeWhile(result -> result.failedUsers().isEmpty(), true)
+        .runWith(Sink.<Outcome, ChunkResult>fold(new Outcome.Completed(0), (outcome, result) -> result.failedUsers().isEmpty()
+            ? new Outcome.Completed(outcome.stored() + result.stored())
+            : new Outcome.Failed(outcome.stored() + result.stored(), result.failedUsers(),
+                result.firstReading(), result.lastReading(), result.cause())), materializer)
+        .handle((outcome, error) -> {
+          if (error == null) {
+            return outcome;
+          }
+          var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+          if (cause instanceof InvalidReadingException) {
+            return new Outcome.Rejected(stored.get(), cause.getMessage());
+          }
+          throw new CompletionException(cause);
+        });
+  }
+
+  private SensorData parseReading(byte[] json, int position) {
+    SensorData reading;
+    try {
+      reading = objectMapper.readValue(json, SensorData.class);
+    } catch (IOException e) {
+      throw new InvalidReadingException("Reading " + position + " is not a valid sensor reading");
+    }
+    if (reading.userId() == null || reading.userId().isBlank()) {
+      throw new InvalidReadingException("Reading " + position + " has no userId");
+    }
+    return reading;
+  }
+
+  private CompletionStage<ChunkResult> persistChunk(List<SensorData> chunk, int firstReading) {
+    var byUser = List.copyOf(chunk.stream().collect(Collectors.groupingBy(SensorData::userId)).entrySet());
+    // each write completes with its failure, null if it succeeded
+    var writes = byUser.stream()
+        .map(entry -> write(entry.getKey(), entry.getValue()))
+        .toList();
+    return CompletableFuture.allOf(writes.toArray(CompletableFuture<?>[]::new))
+        .thenApply(__ -> {
+          int stored = 0;
+          var failedUsers = new ArrayList<String>();
+          Throwable cause = null;
+          for (int i = 0; i < byUser.size(); i++) {
+            var error = writes.get(i).join();
+            if (error == null) {
+              stored += byUser.get(i).getValue().size();
+            } else {
+              failedUsers.add(byUser.get(i).getKey());
+              cause = cause == null ? error : cause;
+            }
+          }
+          return new ChunkResult(stored, List.copyOf(failedUsers), firstReading, firstReading + chunk.size() - 1, cause);
+        });
+  }
+
+  private CompletableFuture<Throwable> write(String userId, List<SensorData> readings) {
+    CompletionStage<?> write;
+    try {
+      write = writer.write(userId, readings);
+    } catch (RuntimeException e) {
+      write = CompletableFuture.failedFuture(e);
+    }
+    return write.handle((done, error) -> error).toCompletableFuture();
+  }
+}
@@ -1,13 +1,20 @@
 package io.akka.health.ingest.api;
 
+import akka.http.javadsl.model.HttpResponse;
 import akka.javasdk.annotations.Acl;
 import akka.javasdk.annotations.http.Get;
 import akka.javasdk.annotations.http.HttpEndpoint;
 import akka.javasdk.client.ComponentClient;
+import akka.javasdk.http.AbstractHttpEndpoint;
+import akka.javasdk.http.HttpResponses;
+import io.akka.health.ingest.application.SensorEntity;
 import io.akka.health.ingest.application.SensorView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 /**
@@ -15,7 +22,9 @@ import java.util.concurrent.CompletionStage;
  */
 @Acl(allow = @Acl.Matcher(principal = Acl.Principal.INTERNET))
 @HttpEndpoint("/sensor")
-public class SensorEndpoint {
+public class SensorEndpoint extends AbstractHttpEndpoint {
+
+    private static final int DEFAULT_LIMIT = 50;
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final ComponentClient componentClient;
@@ -25,16 +34,49 @@ public class SensorEndpoint {
     }
 
     /**
-     * Get all sensor data for a specific user.
+     * Get the latest reading of each sensor for a specific user.
      *
      * @param userId The unique identifier for the user
-     * @return A CompletionStage containing all sensor data for the user
+     * @return A CompletionStage containing the latest reading per sensor
      */
     @Get("/{userId}")
-    public CompletionStage<SensorView.AllSensorData> getSensorDataByUser(String userId) {
-        logger.info("Retrieving sensor data for user: {}", userId);
+    public CompletionStage<SensorView.LatestSensorData> getSensorDataByUser(String userId) {
+        logger.info("Retrieving latest sensor data for user: {}", userId);
         return componentClient.forView()
-                .method(SensorView::getSensorDataByByUser)
+                .method(SensorView::getLatestSensorDataByUser)
                 .invokeAsync(userId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Get a page of sensor readings for a specific user, newest first.
+     * <p>
+     * Optional query parameters: {@code description}, {@code from} and {@code to} (ISO-8601 instants),
+     * {@code limit} (default 50, at most 100) and {@code offset}.
+     *
+     * @param userId The unique identifier for the user
+     * @return A CompletionStage containing the page of readings, or a bad request for malformed parameters
+     */
+    @Get("/{userId}/readings")
+    public CompletionStage<HttpResponse> getSensorReadings(String userId) {
+        var params = requestContext().queryParams();
+        SensorEntity.ReadingsQuery query;
+        try {
+            query = new SensorEntity.ReadingsQuery(
+                    params.getString("description").orElse(null),
+                    params.getString("from").map(from -> Instant.parse(from).toEpochMilli()).orElse(null),
+                    params.getString("to").map(to -> Instant.parse(to).toEpochMilli()).orElse(null),
+                    params.getInteger("limit").orElse(DEFAULT_LIMIT),
+                    params.getInteger("offset").orElse(0));
+        } catch (DateTimeParseException e) {
+            return CompletableFuture.completedFuture(
+                    HttpResponses.badRequest("from and to must be ISO-8601 instants, e.g. 2025-01-31T00:00:00Z"));
+        } catch (NumberFormatException e) {
+            return CompletableFuture.completedFuture(HttpResponses.badRequest("limit and offset must be integers"));
+        }
+        logger.info("Retrieving sensor readings for user {}: {}", userId, query);
+        return componentClient.forEventSourcedEntity(userId)
+                .method(SensorEntity::getReadings)
+                .invokeAsync(query)
+                .thenApply(HttpResponses::ok);
+    }
+}
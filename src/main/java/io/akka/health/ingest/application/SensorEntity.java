@@ -4,54 +4,162 @@ import akka.Done;
 import akka.javasdk.annotations.ComponentId;
 import akka.javasdk.eventsourcedentity.EventSourcedEntity;
 import akka.javasdk.eventsourcedentity.EventSourcedEntityContext;
+import com.typesafe.config.Config;
 import io.akka.health.ingest.domain.SensorData;
+import io.akka.health.ingest.domain.SensorValueParsers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 
+/**
+ * Holds the recent sensor readings of a user.
+ * <p>
+ * Readings are kept per sensor description and bounded by the retention policy in
+ * {@code health-agent.sensor.retention}: at most {@code max-readings-per-sensor} readings, none older than
+ * {@code max-age}. These are the only readings that can be queried, see {@link #getReadings}: older readings
+ * remain in the event journal but are not queryable anywhere, {@link SensorView} only keeps the latest reading of
+ * each sensor.
+ */
 @ComponentId("sensor-entity")
 public class SensorEntity extends EventSourcedEntity<SensorEntity.State, SensorEntity.Event> {
 
-  public record State(String id, List<SensorData> data) {}
+  public record Reading(SensorData data, Instant timestamp) {}
+
+  /**
+   * @param data the retained readings per sensor description, oldest first. The map and the lists are immutable,
+   *             applying an event copies the list of the one sensor it adds a reading to.
+   */
+  public record State(String id, Map<String, List<Reading>> data) {}
+
+  /**
+   * Filter and page over the retained readings.
+   *
+   * @param description sensor description to filter on, null for all sensors
+   * @param from        earliest reading time in epoch millis (inclusive), null for no lower bound
+   * @param to          latest reading time in epoch millis (inclusive), null for no upper bound
+   * @param limit       maximum number of readings to return
+   * @param offset      number of matching readings to skip
+   */
+  public record ReadingsQuery(String description, Long from, Long to, int limit, int offset) {}
+
+  /**
+   * @param data       the matching readings, newest first
+   * @param total      the number of matching readings
+   * @param nextOffset the offset of the next page, null if there is none
+   */
+  public record ReadingsPage(List<SensorData> data, int total, Integer nextOffset) {}
+
   public sealed interface Event {
-    record Added(SensorData data) implements Event {}
+    /**
+     * @param timestamp when the reading was ingested, null for events persisted before it was recorded
+     */
+    record Added(SensorData data, Instant timestamp) implements Event {}
   }
 
+  private static final int MAX_PAGE_SIZE = 100;
+
   private final String entityId;
+  private final int maxReadingsPerSensor;
+  private final Duration maxAge;
+  private final Supplier<Instant> clock;
   private static final Logger logger = LoggerFactory.getLogger(SensorEntity.class);
 
-  public SensorEntity(EventSourcedEntityContext context) {
+  public SensorEntity(EventSourcedEntityContext context, Config config) {
+    this(context, config, Instant::now);
+  }
+
+  /**
+   * @param clock the ingestion time of new readings
+   */
+  SensorEntity(EventSourcedEntityContext context, Config config, Supplier<Instant> clock) {
     this.entityId = context.entityId();
+    this.maxReadingsPerSensor = config.getInt("health-agent.sensor.retention.max-readings-per-sensor");
+    this.maxAge = config.getDuration("health-agent.sensor.retention.max-age");
+    this.clock = clock;
   }
 
   @Override
   public SensorEntity.State emptyState() {
-    return new SensorEntity.State(entityId, List.of());
+    return new SensorEntity.State(entityId, Map.of());
   }
 
   public Effect<Done> addData(SensorData data) {
-    var event = new Event.Added(data);
+    var timestamp = clock.get();
+    var event = new Event.Added(SensorValueParsers.normalize(data, timestamp), timestamp);
 
     return effects()
         .persist(event)
         .thenReply(newState -> Done.getInstance());
   }
 
+  /**
+   * Adds several readings of this user with a single effect.
+   */
+  public Effect<Done> addDataBatch(List<SensorData> data) {
+    var timestamp = clock.get();
+    List<Event> events = data.stream()
+        .<Event>map(d -> new Event.Added(SensorValueParsers.normalize(d, timestamp), timestamp))
+        .toList();
+
+    return effects()
+        .persistAll(events)
+        .thenReply(newState -> Done.getInstance());
+  }
+
   public ReadOnlyEffect<SensorEntity.State> getState() {
     return effects().reply(currentState());
   }
 
+  public ReadOnlyEffect<ReadingsPage> getReadings(ReadingsQuery query) {
+    var description = query.description() == null ? null : SensorValueParsers.normalizeDescription(query.description());
+    var matching = currentState().data().entrySet().stream()
+        .filter(entry -> description == null || entry.getKey().equals(description))
+        .flatMap(entry -> entry.getValue().stream())
+        .map(Reading::data)
+        .filter(data -> query.from() == null || (data.timestamp() != null && data.timestamp() >= query.from()))
+        .filter(data -> query.to() == null || (data.timestamp() != null && data.timestamp() <= query.to()))
+        .sorted(Comparator.comparing(SensorData::timestamp, Comparator.nullsLast(Comparator.reverseOrder())))
+        .toList();
+
+    int limit = Math.max(0, Math.min(query.limit(), MAX_PAGE_SIZE));
+    int from = Math.min(Math.max(0, query.offset()), matching.size());
+    int to = Math.min(from + limit, matching.size());
+    var nextOffset = to < matching.size() ? to : null;
+    return effects().reply(new ReadingsPage(matching.subList(from, to), matching.size(), nextOffset));
+  }
+
   @Override
   public SensorEntity.State applyEvent(SensorEntity.Event event) {
     return switch (event) {
       case SensorEntity.Event.Added added -> {
-        var newData = new java.util.ArrayList<>(currentState().data());
-        newData.add(added.data);
-        yield new SensorEntity.State(currentState().id(), newData);
+        var description = SensorValueParsers.normalizeDescription(added.data().description());
+        var readings = new ArrayList<>(currentState().data().getOrDefault(description, List.of()));
+        readings.add(new Reading(added.data(), added.timestamp()));
+        evict(readings, added.timestamp());
+        var data = new HashMap<>(currentState().data());
+        data.put(description, List.copyOf(readings));
+        yield new SensorEntity.State(currentState().id(), Map.copyOf(data));
       }
     };
   }
+
+  private void evict(List<Reading> readings, Instant now) {
+    if (readings.size() > maxReadingsPerSensor) {
+      readings.subList(0, readings.size() - maxReadingsPerSensor).clear();
+    }
+    if (now != null) {
+      // uses the event's timestamp, so that replaying the events yields the same state
+      var oldest = now.minus(maxAge);
+      readings.removeIf(reading -> reading.timestamp() != null && reading.timestamp().isBefore(oldest));
+    }
+  }
 }
@@ -0,0 +1,61 @@
+package io.akka.health.ingest.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.consumer.Consumer;
+import io.akka.health.ingest.domain.SensorRollup;
+import io.akka.health.ingest.domain.SensorValueParsers;
+
+import java.time.Duration;
+
+/**
+ * Adds each numeric sensor reading to the hourly and the daily {@link SensorRollupEntity} it falls into.
+ */
+@ComponentId("sensor-rollup-consumer")
+@Consume.FromEventSourcedEntity(SensorEntity.class)
+public class SensorRollupConsumer extends Consumer {
+
+  // cloud event extension with the sequence number of the event in its entity
+  private static final String SEQUENCE_METADATA = "ce-sequence";
+
+  private final ComponentClient componentClient;
+
+  public SensorRollupConsumer(ComponentClient componentClient) {
+    this.componentClient = componentClient;
+  }
+
+  public Effect onEvent(SensorEntity.Event event) {
+    return switch (event) {
+      case SensorEntity.Event.Added added -> {
+        var data = added.data();
+        if (data.values() == null || data.values().isEmpty() || data.timestamp() == null) {
+          // nothing to aggregate for readings without numeric values
+          yield effects().ignore();
+        }
+
+        var userId = messageContext().eventSubject().get();
+        var description = SensorValueParsers.normalizeDescription(data.description());
+        var sequence = sequence();
+        for (var period : new String[] {SensorRollup.HOUR, SensorRollup.DAY}) {
+          var bucketStart = bucketStart(data.timestamp(), period.equals(SensorRollup.HOUR) ? Duration.ofHours(1) : Duration.ofDays(1));
+          componentClient.forKeyValueEntity(SensorRollupEntity.entityId(userId, description, period, bucketStart))
+              .method(SensorRollupEntity::add)
+              .invoke(new SensorRollupEntity.AddReading(userId, description, period, bucketStart, data.unit(), data.values(), sequence));
+        }
+        yield effects().done();
+      }
+    };
+  }
+
+  private long sequence() {
+    // without it a redelivered event would be counted twice, so don't add the reading at all
+    return messageContext().metadata().get(SEQUENCE_METADATA)
+        .map(Long::parseLong)
+        .orElseThrow(() -> new IllegalStateException("Sensor event without " + SEQUENCE_METADATA + " metadata"));
+  }
+
+  private static long bucketStart(long timestamp, Duration size) {
+    return timestamp - Math.floorMod(timestamp, size.toMillis());
+  }
+}
@@ -0,0 +1,53 @@
+package io.akka.health.ingest.application;
+
+import akka.Done;
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.keyvalueentity.KeyValueEntity;
+import io.akka.health.ingest.domain.SensorRollup;
+
+import java.util.List;
+
+/**
+ * The rollup of one sensor of one user for one hour or day, fed by {@link SensorRollupConsumer}.
+ * <p>
+ * Readings can be delivered more than once, so each carries the sequence number of its {@link SensorEntity}
+ * event and the ones at or below the last added sequence number are ignored. All readings of a bucket come from
+ * the same user's entity, in order, so the sequence numbers only grow.
+ */
+@ComponentId("sensor-rollup")
+public class SensorRollupEntity extends KeyValueEntity<SensorRollupEntity.State> {
+
+  /**
+   * @param lastSequence the sequence number of the last {@link SensorEntity} event added to the rollup
+   */
+  public record State(String userId, SensorRollup rollup, long lastSequence) {}
+
+  /**
+   * @param sequence the sequence number of the {@link SensorEntity} event holding the reading
+   */
+  public record AddReading(String userId, String description, String period, long bucketStart, String unit,
+                           List<Double> values, long sequence) {}
+
+  public static String entityId(String userId, String description, String period, long bucketStart) {
+    return userId + ":" + description + ":" + period + ":" + bucketStart;
+  }
+
+  public Effect<Done> add(AddReading reading) {
+    var state = currentState();
+    if (state != null && reading.sequence() <= state.lastSequence()) {
+      // a redelivered event, the reading has been added already
+      return effects().reply(Done.getInstance());
+    }
+
+    var rollup = state == null
+        ? SensorRollup.of(reading.description(), reading.period(), reading.bucketStart(), reading.unit(), reading.values())
+        : state.rollup().add(reading.values(), reading.unit());
+    return effects()
+        .updateState(new State(reading.userId(), rollup, reading.sequence()))
+        .thenReply(Done.getInstance());
+  }
+
+  public ReadOnlyEffect<SensorRollup> getRollup() {
+    return effects().reply(currentState() == null ? null : currentState().rollup());
+  }
+}
@@ -0,0 +1,48 @@
+package io.akka.health.ingest.application;
+
+import akka.javasdk.annotations.ComponentId;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.annotations.Query;
+import akka.javasdk.annotations.Table;
+import akka.javasdk.view.TableUpdater;
+import akka.javasdk.view.View;
+import io.akka.health.ingest.domain.SensorRollup;
+
+import java.util.List;
+
+/**
+ * Hourly and daily count/min/max/sum/last rollups of the sensor readings, one row per user, sensor description,
+ * period and bucket, so a time range of one sensor is read without loading the other buckets of the user.
+ */
+@ComponentId("sensor-rollup-view")
+public class SensorRollupView extends View {
+
+    public record RollupRow(String userId, String description, String period, long bucketStart, SensorRollup rollup) {}
+
+    public record SensorRollups(List<RollupRow> rollups) {}
+
+    /**
+     * @param description the normalized sensor description
+     * @param from        earliest bucket start in epoch millis, inclusive
+     * @param to          latest bucket start in epoch millis, inclusive
+     */
+    public record RollupRangeRequest(String userId, String description, String period, long from, long to) {}
+
+    @Query("SELECT collect(*) as rollups FROM sensor_rollups " +
+            "WHERE userId = :userId AND description = :description AND period = :period " +
+            "AND bucketStart >= :from AND bucketStart <= :to")
+    public QueryEffect<SensorRollups> getRollups(RollupRangeRequest request) {
+        return queryResult();
+    }
+
+    @Table("sensor_rollups")
+    @Consume.FromKeyValueEntity(SensorRollupEntity.class)
+    public static class RollupUpdater extends TableUpdater<RollupRow> {
+
+        public Effect<RollupRow> onUpdate(SensorRollupEntity.State state) {
+            var rollup = state.rollup();
+            return effects().updateRow(
+                    new RollupRow(state.userId(), rollup.description(), rollup.period(), rollup.bucketStart(), rollup));
+        }
+    }
+}
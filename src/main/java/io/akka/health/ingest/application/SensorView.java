@@ -7,31 +7,49 @@ import akka.javasdk.annotations.Table;
 import akka.javasdk.view.TableUpdater;
 import akka.javasdk.view.View;
 import io.akka.health.ingest.domain.SensorData;
+import io.akka.health.ingest.domain.SensorValueParsers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * The latest reading of each sensor per user.
+ * <p>
+ * A view row is kept per {@link SensorEntity}, so the row holds one reading per sensor description and its
+ * size does not grow with the history. Filtered and paginated access to the history is provided by
+ * {@link SensorEntity#getReadings}.
+ */
 @ComponentId("sensor-view")
 public class SensorView extends View {
 
     private final static Logger logger = LoggerFactory.getLogger(SensorView.class);
 
-    public record AllSensorData(List<SensorData> data) {}
+    public record LatestSensorData(String userId, List<SensorData> data) {}
 
-    @Query("SELECT collect(*) as data FROM sensordata WHERE userId = :userId")
-    public QueryEffect<AllSensorData> getSensorDataByByUser(String userId) {
+    @Query("SELECT * FROM sensor_latest WHERE userId = :userId")
+    public QueryEffect<LatestSensorData> getLatestSensorDataByUser(String userId) {
         return queryResult();
     }
 
-    @Table("sensordata")
+    @Table("sensor_latest")
     @Consume.FromEventSourcedEntity(SensorEntity.class)
-    public static class SensorUpdater extends TableUpdater<SensorData> {
-        public Effect<SensorData> onEvent(SensorEntity.Event event) {
+    public static class SensorUpdater extends TableUpdater<LatestSensorData> {
+        public Effect<LatestSensorData> onEvent(SensorEntity.Event event) {
             return switch (event) {
                 case SensorEntity.Event.Added added -> {
-                    yield effects().updateRow(added.data());
+                    var description = SensorValueParsers.normalizeDescription(added.data().description());
+                    var data = new ArrayList<SensorData>();
+                    if (rowState() != null) {
+                        rowState().data().stream()
+                                .filter(d -> !SensorValueParsers.normalizeDescription(d.description()).equals(description))
+                                .forEach(data::add);
+                    }
+                    data.add(added.data());
+                    var userId = updateContext().eventSubject().orElse(added.data().userId());
+                    yield effects().updateRow(new LatestSensorData(userId, data));
                 }
             };
         }
@@ -1,57 +1,65 @@
 package io.akka.health.ingest.domain;
 
 import akka.Done;
-import io.akka.health.common.MongoDbUtils;
-import io.akka.health.common.OpenAiUtils;
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.DocumentSplitter;
 import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.document.splitter.DocumentByCharacterSplitter;
+import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
-import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.mongodb.MongoDbEmbeddingStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 public class Index {
 
+  // OpenAI accepts at most 2048 inputs per embedding request
+  private static final int MAX_SEGMENTS_PER_BATCH = 2048;
+
   private final Logger logger = LoggerFactory.getLogger(getClass());
-  private final OpenAiEmbeddingModel embeddingModel;
+  private final EmbeddingModel embeddingModel;
   private final MongoDbEmbeddingStore embeddingStore;
   private final DocumentSplitter splitter;
 
-  public Index(MongoDbEmbeddingStore embeddingStore) {
-    this.embeddingModel = OpenAiUtils.embeddingModel();
+  public Index(EmbeddingModel embeddingModel, MongoDbEmbeddingStore embeddingStore) {
+    this.embeddingModel = embeddingModel;
     this.embeddingStore = embeddingStore;
     this.splitter = new DocumentByCharacterSplitter(500, 50);
   }
 
   public CompletionStage<Done> indexMedicalRecord(MedicalRecord medicalRecord) {
     Metadata metadata = Metadata.metadata("patientId", medicalRecord.patientId());
+    // identifies the segments of one record, so that neighbouring segments can be merged at retrieval
+    metadata.put("recordId", UUID.randomUUID().toString());
     metadata.put("reasonForVisit", medicalRecord.reasonForVisit());
     metadata.put("diagnosis", medicalRecord.diagnosis());
     Document document = Document.from(medicalRecord.toString(), metadata);
     List<TextSegment> segments = splitter.split(document);
 
-    // ingest each segment
-    var done = CompletableFuture.completedFuture(Done.getInstance());
-    return segments.stream().reduce(
-            done,
-            (acc, seg) -> indexSegment(seg),
-            (a,b) -> done);
+    return CompletableFuture
+            // embed all segments, one request per batch
+            .supplyAsync(() -> embedAll(segments))
+            // store all embeddings in MongoDB with a single write
+            .thenApply(embeddings -> embeddingStore.addAll(embeddings, segments))
+            .thenApply(ids -> {
+              logger.info("Indexed {} segments for patient {}", ids.size(), medicalRecord.patientId());
+              return Done.getInstance();
+            });
   }
 
-  private CompletableFuture<Done> indexSegment(TextSegment segment) {
-    return CompletableFuture
-            // embed the segment
-            .supplyAsync(() -> embeddingModel.embed(segment))
-            // store the embedding in MongoDB
-            .thenCompose(res ->
-                    CompletableFuture.supplyAsync(() -> embeddingStore.add(res.content(), segment)))
-            .thenApply(__ -> Done.getInstance());
+  private List<Embedding> embedAll(List<TextSegment> segments) {
+    List<Embedding> embeddings = new ArrayList<>(segments.size());
+    for (int from = 0; from < segments.size(); from += MAX_SEGMENTS_PER_BATCH) {
+      int to = Math.min(from + MAX_SEGMENTS_PER_BATCH, segments.size());
+      embeddings.addAll(embeddingModel.embedAll(segments.subList(from, to)).content());
+    }
+    return embeddings;
   }
 }
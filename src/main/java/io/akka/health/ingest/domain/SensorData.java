@@ -1,11 +1,31 @@
 package io.akka.health.ingest.domain;
 
+import java.util.List;
+
 /**
  * Represents the data collected from a sensor.
  *
  * @param userId   The unique identifier for the patient (e.g., "12345").
  * @param source      The source of the sensor data (e.g., "smartwatch", "fitness-tracker", "medical-device").
  * @param description A brief description of the sensor (e.g., "temperature", "heart-rate", "blood-pressure").
- * @param value       The value recorded by the sensor (e.g., "98.6°F", "72 bpm", "120/80 mmHg").
+ * @param value       The raw value recorded by the sensor (e.g., "98.6°F", "72 bpm", "120/80 mmHg"), kept for audit.
+ * @param values      The numeric values parsed from the raw value at ingestion (e.g., [120, 80]), empty if none could be parsed.
+ * @param unit        The unit of the values (e.g., "mmHg"), null if unknown.
+ * @param timestamp   The time of the reading in epoch milliseconds, the ingestion time if the sensor did not provide it.
  */
-public record SensorData(String userId, String source, String description, String value) {}
+public record SensorData(
+        String userId,
+        String source,
+        String description,
+        String value,
+        List<Double> values,
+        String unit,
+        Long timestamp) {
+
+  /**
+   * The first numeric value, or null if none was parsed.
+   */
+  public Double primaryValue() {
+    return values == null || values.isEmpty() ? null : values.getFirst();
+  }
+}
@@ -0,0 +1,78 @@
+package io.akka.health.ingest.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+/**
+ * Aggregate of the readings of one sensor within one hour or day.
+ * The statistics are kept per numeric component, e.g. systolic and diastolic for blood pressure.
+ *
+ * @param description The normalized sensor description (e.g., "blood pressure").
+ * @param period      The bucket size, "hour" or "day".
+ * @param bucketStart The start of the bucket in epoch milliseconds (UTC).
+ * @param unit        The unit of the values.
+ * @param count       The number of readings.
+ * @param min         The minimum per component.
+ * @param max         The maximum per component.
+ * @param sum         The sum per component.
+ * @param last        The values of the most recent reading.
+ */
+public record SensorRollup(
+        String description,
+        String period,
+        long bucketStart,
+        String unit,
+        long count,
+        List<Double> min,
+        List<Double> max,
+        List<Double> sum,
+        List<Double> last) {
+
+    public static final String HOUR = "hour";
+    public static final String DAY = "day";
+
+    public static SensorRollup of(String description, String period, long bucketStart, String unit, List<Double> values) {
+        return new SensorRollup(description, period, bucketStart, unit, 1, values, values, values, values);
+    }
+
+    public SensorRollup add(List<Double> values, String unit) {
+        return new SensorRollup(
+                description,
+                period,
+                bucketStart,
+                unit != null ? unit : this.unit,
+                count + 1,
+                combine(min, values, Math::min),
+                combine(max, values, Math::max),
+                combine(sum, values, Double::sum),
+                values);
+    }
+
+    public SensorRollup merge(SensorRollup other) {
+        return new SensorRollup(
+                description,
+                period,
+                Math.min(bucketStart, other.bucketStart),
+                unit != null ? unit : other.unit,
+                count + other.count,
+                combine(min, other.min, Math::min),
+                combine(max, other.max, Math::max),
+                combine(sum, other.sum, Double::sum),
+                bucketStart >= other.bucketStart ? last : other.last);
+    }
+
+    public List<Double> average() {
+        return sum.stream().map(s -> s / count).toList();
+    }
+
+    private static List<Double> combine(List<Double> a, List<Double> b, BinaryOperator<Double> op) {
+        var result = new ArrayList<Double>(Math.max(a.size(), b.size()));
+        for (int i = 0; i < Math.max(a.size(), b.size()); i++) {
+            if (i >= a.size()) result.add(b.get(i));
+            else if (i >= b.size()) result.add(a.get(i));
+            else result.add(op.apply(a.get(i), b.get(i)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package io.akka.health.ingest.domain;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of parsers that turn the free-form value of a sensor reading into numeric values and a unit,
+ * selected by the sensor description.
+ */
+public final class SensorValueParsers {
+
+  public record ParsedValue(List<Double> values, String unit) {}
+
+  @FunctionalInterface
+  public interface SensorValueParser {
+    ParsedValue parse(String raw);
+  }
+
+  private static final Pattern NUMBER = Pattern.compile("-?\\d+(?:[.,]\\d+)?");
+
+  private static final SensorValueParser DEFAULT = raw -> numbersAndUnit(raw, null);
+
+  private static final Map<String, SensorValueParser> PARSERS = Map.of(
+      "heart rate", raw -> numbersAndUnit(raw, "bpm"),
+      "pulse", raw -> numbersAndUnit(raw, "bpm"),
+      "blood pressure", raw -> numbersAndUnit(raw, "mmHg"),
+      "temperature", raw -> numbersAndUnit(raw, "°C"),
+      "weight", raw -> numbersAndUnit(raw, "kg"),
+      "blood oxygen", raw -> numbersAndUnit(raw, "%"),
+      "spo2", raw -> numbersAndUnit(raw, "%"),
+      "blood glucose", raw -> numbersAndUnit(raw, "mg/dL"),
+      "steps", raw -> numbersAndUnit(raw, "steps"),
+      "respiratory rate", raw -> numbersAndUnit(raw, "breaths/min"));
+
+  private SensorValueParsers() {}
+
+  /**
+   * Normalizes a description, e.g. "Heart-Rate" to "heart rate".
+   */
+  public static String normalizeDescription(String description) {
+    if (description == null) return "";
+    return description.trim().toLowerCase(Locale.ROOT).replace('-', ' ').replace('_', ' ').replaceAll("\\s+", " ");
+  }
+
+  public static SensorValueParser parserFor(String description) {
+    return PARSERS.getOrDefault(normalizeDescription(description), DEFAULT);
+  }
+
+  /**
+   * Adds the parsed values, unit and timestamp to a reading, keeping the raw value.
+   * Readings that already carry parsed values are returned unchanged apart from a missing timestamp.
+   */
+  public static SensorData normalize(SensorData data, Instant receivedAt) {
+    Long timestamp = data.timestamp() != null ? data.timestamp() : receivedAt.toEpochMilli();
+    if (data.values() != null && !data.values().isEmpty()) {
+      return new SensorData(data.userId(), data.source(), data.description(), data.value(), data.values(), data.unit(), timestamp);
+    }
+    var parsed = data.value() == null
+        ? new ParsedValue(List.of(), data.unit())
+        : parserFor(data.description()).parse(data.value());
+    var unit = data.unit() != null ? data.unit() : parsed.unit();
+    return new SensorData(data.userId(), data.source(), data.description(), data.value(), parsed.values(), unit, timestamp);
+  }
+
+  /**
+   * Extracts all numbers of the raw value ("120/80 mmHg" gives [120, 80]) and takes the text after the last
+   * number as unit, or the default unit if there is none.
+   */
+  private static ParsedValue numbersAndUnit(String raw, String defaultUnit) {
+    var matcher = NUMBER.matcher(raw);
+    var values = new ArrayList<Double>();
+    int end = 0;
+    while (matcher.find()) {
+      values.add(Double.parseDouble(matcher.group().replace(',', '.')));
+      end = matcher.end();
+    }
+    var unit = values.isEmpty() ? "" : raw.substring(end).trim();
+    return new ParsedValue(List.copyOf(values), unit.isEmpty() ? defaultUnit : unit);
+  }
+}
@@ -0,0 +1,130 @@
+package io.akka.health.agent.api;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.japi.function.Function2;
+import akka.javasdk.agent.Agent;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.eventsourcedentity.EventSourcedEntity;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.typesafe.config.ConfigFactory;
+import io.akka.health.agent.application.AnswerCache;
+import io.akka.health.agent.application.ConversationLogEntity;
+import io.akka.health.agent.application.HealthAgent;
+import io.akka.health.agent.application.ModelRouter;
+import io.akka.health.agent.domain.ConversationWindow;
+import io.akka.health.agent.domain.HealthAgentRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AgentEndpointTest {
+
+    private static ActorSystem system;
+    private static Materializer materializer;
+
+    private ComponentClient componentClient;
+    private final List<ConversationLogEntity.Exchange> recorded = new CopyOnWriteArrayList<>();
+
+    @BeforeAll
+    public static void start() {
+        system = ActorSystem.create("AgentEndpointTest");
+        materializer = Materializer.matFromSystem(system);
+    }
+
+    @AfterAll
+    public static void stop() {
+        system.terminate();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        componentClient = mock(ComponentClient.class, RETURNS_DEEP_STUBS);
+        when(componentClient.forEventSourcedEntity(anyString())
+                .method(ArgumentMatchers.<Function2<ConversationLogEntity, Integer, EventSourcedEntity.Effect<ConversationWindow>>>any())
+                .invoke(anyInt()))
+                .thenReturn(ConversationWindow.empty());
+        when(componentClient.forEventSourcedEntity(anyString())
+                .method(ArgumentMatchers.<Function2<ConversationLogEntity, ConversationLogEntity.Exchange, EventSourcedEntity.Effect<Done>>>any())
+                .invokeAsync(any()))
+                .thenAnswer(invocation -> {
+                    recorded.add(invocation.getArgument(0));
+                    return CompletableFuture.completedFuture(Done.getInstance());
+                });
+    }
+
+    private AgentEndpoint endpoint() {
+        return new AgentEndpoint(
+                componentClient,
+                new AnswerCache(null, true, 0.9, 10),
+                new ModelRouter(),
+                ConfigFactory.parseString("health-agent.memory.max-window-messages = 40"));
+    }
+
+    private void streamTokens(String... tokens) {
+        when(componentClient.forAgent().inSession(anyString())
+                .tokenStream(ArgumentMatchers.<Function2<HealthAgent, HealthAgentRequest, Agent.StreamEffect>>any())
+                .source(any()))
+                .thenReturn(Source.from(List.of(tokens)));
+    }
+
+    @Test
+    public void streamsOneEventPerToken() {
+        streamTokens("You walked", " 8,412", " steps.");
+
+        var response = endpoint().askStream(new AgentEndpoint.AskRequest("alice", "s1", "How many steps did I walk yesterday?"));
+
+        assertTrue(response.entity().getContentType().toString().startsWith("text/event-stream"),
+                response.entity().getContentType().toString());
+        var body = response.entity().getDataBytes()
+                .runFold(ByteString.emptyByteString(), ByteString::concat, materializer)
+                .toCompletableFuture().join()
+                .utf8String();
+
+        // events are "data: ..." lines separated by a blank line
+        var events = Arrays.stream(body.split("\n\n")).filter(event -> !event.isBlank()).toList();
+        assertEquals(3, events.size(), body);
+        events.forEach(event -> assertTrue(event.startsWith("data:"), event));
+        assertTrue(events.get(1).contains("8,412"), events.get(1));
+
+        // recorded once the last token is sent, with the whole answer
+        assertEquals(1, recorded.size());
+        assertEquals("You walked 8,412 steps.", recorded.getFirst().answer());
+    }
+
+    @Test
+    public void doesNotRecordAFailedAnswer() {
+        when(componentClient.forAgent().inSession(anyString())
+                .tokenStream(ArgumentMatchers.<Function2<HealthAgent, HealthAgentRequest, Agent.StreamEffect>>any())
+                .source(any()))
+                .thenReturn(Source.<String>single("You walked").concat(Source.failed(new IllegalStateException("model unavailable"))));
+
+        var response = endpoint().askStream(new AgentEndpoint.AskRequest("alice", "s1", "How many steps did I walk yesterday?"));
+        var result = response.entity().getDataBytes()
+                .runFold(ByteString.emptyByteString(), ByteString::concat, materializer)
+                .toCompletableFuture()
+                .handle((body, error) -> error);
+
+        assertNotNull(result.join());
+        assertTrue(recorded.isEmpty());
+    }
+}
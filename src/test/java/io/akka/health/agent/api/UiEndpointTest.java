@@ -0,0 +1,112 @@
+package io.akka.health.agent.api;
+
+import akka.actor.ActorSystem;
+import akka.japi.function.Function2;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.http.RequestContext;
+import akka.javasdk.view.View;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import io.akka.health.agent.application.ConversationHistoryView;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UiEndpointTest {
+
+  private static ActorSystem system;
+  private static Materializer materializer;
+
+  private final List<ConversationHistoryView.SessionsSince> queries = new CopyOnWriteArrayList<>();
+  private UiEndpoint endpoint;
+  private RequestContext requestContext;
+
+  @BeforeAll
+  public static void start() {
+    system = ActorSystem.create("UiEndpointTest");
+    materializer = Materializer.matFromSystem(system);
+  }
+
+  @AfterAll
+  public static void stop() {
+    system.terminate();
+  }
+
+  @BeforeEach
+  public void setUp() {
+    var componentClient = mock(ComponentClient.class, RETURNS_DEEP_STUBS);
+    // the view only returns the sessions with a message after since, which is what the endpoint must pass on
+    when(componentClient.forView()
+        .stream(ArgumentMatchers.<Function2<ConversationHistoryView, ConversationHistoryView.SessionsSince, View.QueryStreamEffect<ConversationHistoryView.SessionSummary>>>any())
+        .source(any()))
+        .thenAnswer(invocation -> {
+          ConversationHistoryView.SessionsSince request = invocation.getArgument(0);
+          queries.add(request);
+          return Source.from(List.of(
+                  new ConversationHistoryView.SessionSummary("alice", "s1", 100, 900, 2, "How did I sleep?"),
+                  new ConversationHistoryView.SessionSummary("alice", "s2", 200, 2000, 4, "Steps?")))
+              .filter(session -> session.lastMessageAt() > request.since());
+        });
+
+    requestContext = mock(RequestContext.class, RETURNS_DEEP_STUBS);
+    endpoint = new UiEndpoint(componentClient);
+    endpoint._internalSetRequestContext(requestContext);
+  }
+
+  private void since(String since) {
+    when(requestContext.queryParams().getString("since")).thenReturn(Optional.ofNullable(since));
+  }
+
+  @Test
+  public void streamsTheSessionsUpdatedSince() {
+    since("1000");
+
+    var response = endpoint.getSessionUpdates("alice");
+    var body = response.entity().getDataBytes()
+        .runFold(ByteString.emptyByteString(), ByteString::concat, materializer)
+        .toCompletableFuture().join()
+        .utf8String();
+
+    assertEquals(List.of(new ConversationHistoryView.SessionsSince("alice", 1000)), queries);
+    assertTrue(response.entity().getContentType().toString().startsWith("text/event-stream"));
+    assertTrue(body.startsWith("data:"), body);
+    assertTrue(body.contains("\"s2\""), body);
+    assertFalse(body.contains("\"s1\""), body);
+  }
+
+  @Test
+  public void defaultsToUpdatesFromNow() {
+    since(null);
+    long before = System.currentTimeMillis();
+
+    endpoint.getSessionUpdates("alice");
+
+    assertEquals(1, queries.size());
+    assertTrue(queries.getFirst().since() >= before);
+  }
+
+  @Test
+  public void rejectsASinceThatIsNotEpochMillis() {
+    since("yesterday");
+
+    var response = endpoint.getSessionUpdates("alice");
+
+    assertEquals(400, response.status().intValue());
+    assertTrue(queries.isEmpty());
+  }
+}
@@ -0,0 +1,98 @@
+package io.akka.health.agent.application;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AnswerCacheTest {
+
+    private static final String STEPS = "How many steps did I walk today?";
+    private static final String STEPS_REPHRASED = "How many steps have I walked today?";
+    private static final String SLEEP = "How long did I sleep last night?";
+
+    // fixed embeddings: the two step questions are similar, the sleep question is not
+    private static final Map<String, float[]> EMBEDDINGS = Map.of(
+            STEPS, new float[]{1f, 0f, 0f},
+            STEPS_REPHRASED, new float[]{0.99f, 0.1f, 0f},
+            SLEEP, new float[]{0f, 0f, 1f});
+
+    private static final EmbeddingModel embeddingModel = new EmbeddingModel() {
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            return Response.from(segments.stream().map(segment -> Embedding.from(EMBEDDINGS.get(segment.text()))).toList());
+        }
+    };
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 4, 26);
+
+    @Test
+    public void answersSimilarQuestions() {
+        var cache = new AnswerCache(embeddingModel, false, 0.95, 10);
+        cache.put("alice", STEPS, TODAY, 1, "8,412 steps");
+
+        assertEquals(Optional.of("8,412 steps"), cache.get("alice", STEPS_REPHRASED, TODAY, 1));
+        assertEquals(Optional.empty(), cache.get("alice", SLEEP, TODAY, 1));
+    }
+
+    @Test
+    public void keepsTheAnswersOfEachUserApart() {
+        var cache = new AnswerCache(embeddingModel, false, 0.95, 10);
+        cache.put("alice", STEPS, TODAY, 1, "8,412 steps");
+
+        assertEquals(Optional.empty(), cache.get("bob", STEPS, TODAY, 1));
+    }
+
+    @Test
+    public void missesOnAnotherDayOrDataVersion() {
+        var cache = new AnswerCache(embeddingModel, false, 0.95, 10);
+        cache.put("alice", STEPS, TODAY, 1, "8,412 steps");
+
+        assertEquals(Optional.empty(), cache.get("alice", STEPS, TODAY, 2));
+        // the stale answer was evicted by the previous lookup
+        assertEquals(Optional.empty(), cache.get("alice", STEPS, TODAY, 1));
+
+        cache.put("alice", STEPS, TODAY, 1, "8,412 steps");
+        assertEquals(Optional.empty(), cache.get("alice", STEPS, TODAY.plusDays(1), 1));
+    }
+
+    @Test
+    public void evictsTheOldestAnswersOfAUser() {
+        var cache = new AnswerCache(embeddingModel, false, 0.95, 1);
+        cache.put("alice", STEPS, TODAY, 1, "8,412 steps");
+        cache.put("alice", SLEEP, TODAY, 1, "7 hours");
+
+        assertEquals(Optional.empty(), cache.get("alice", STEPS, TODAY, 1));
+        assertEquals(Optional.of("7 hours"), cache.get("alice", SLEEP, TODAY, 1));
+    }
+
+    @Test
+    public void cachesNothingWhenBypassed() {
+        var cache = new AnswerCache(embeddingModel, true, 0.95, 10);
+        cache.put("alice", STEPS, TODAY, 1, "8,412 steps");
+
+        assertEquals(Optional.empty(), cache.get("alice", STEPS, TODAY, 1));
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        var cache = new AnswerCache(embeddingModel, false, 0.95, 10);
+        cache.put("alice", STEPS, TODAY, 1, "8,412 steps");
+        cache.get("alice", STEPS, TODAY, 1);
+        cache.get("alice", SLEEP, TODAY, 1);
+        cache.get("bob", SLEEP, TODAY, 1);
+
+        var stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.users());
+    }
+}
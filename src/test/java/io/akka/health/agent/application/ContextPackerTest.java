@@ -0,0 +1,86 @@
+package io.akka.health.agent.application;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContextPackerTest {
+
+    private static Content segment(String recordId, int index, String text, double score) {
+        var metadata = new Metadata().put("recordId", recordId).put("index", index);
+        return Content.from(TextSegment.from(text, metadata), Map.<ContentMetadata, Object>of(ContentMetadata.SCORE, score));
+    }
+
+    private static List<String> texts(List<Content> contents) {
+        return contents.stream().map(content -> content.textSegment().text()).toList();
+    }
+
+    @Test
+    public void dropsSegmentsRetrievedTwice() {
+        var packer = new ContextPacker(100);
+        var packed = packer.pack(List.of(
+                segment("r1", 0, "Diagnosed with asthma.", 0.9),
+                segment("r1", 0, "Diagnosed with asthma.", 0.8)));
+
+        assertEquals(List.of("Diagnosed with asthma."), texts(packed));
+    }
+
+    @Test
+    public void mergesNeighbouringSegmentsWithoutTheOverlap() {
+        var packer = new ContextPacker(100);
+        var packed = packer.pack(List.of(
+                segment("r1", 1, "an inhaler twice a day.", 0.7),
+                segment("r1", 0, "Prescribed an inhaler", 0.9)));
+
+        assertEquals(List.of("Prescribed an inhaler twice a day."), texts(packed));
+    }
+
+    @Test
+    public void ordersPassagesByScore() {
+        var packer = new ContextPacker(100);
+        var packed = packer.pack(List.of(
+                segment("r1", 0, "Knee surgery in 2019.", 0.5),
+                segment("r2", 0, "Allergic to penicillin.", 0.9)));
+
+        assertEquals(List.of("Allergic to penicillin.", "Knee surgery in 2019."), texts(packed));
+    }
+
+    @Test
+    public void cutsThePassageThatOverflowsTheBudget() {
+        // 10 tokens, about 40 characters
+        var packer = new ContextPacker(10);
+        var packed = packer.pack(List.of(
+                segment("r1", 0, "Allergic to penicillin.", 0.9),
+                segment("r2", 0, "Knee surgery in 2019, recovered fully after physiotherapy.", 0.5)));
+
+        assertEquals(List.of("Allergic to penicillin.", "Knee surgery in"), texts(packed));
+        int packedChars = texts(packed).stream().mapToInt(String::length).sum();
+        assertTrue(packedChars <= 40);
+    }
+
+    @Test
+    public void stopsWhenTheBudgetIsUsed() {
+        // 5 tokens, about 20 characters, all taken by the first passage
+        var packer = new ContextPacker(5);
+        var packed = packer.pack(List.of(
+                segment("r1", 0, "Allergic to aspirin.", 0.9),
+                segment("r2", 0, "Knee surgery in 2019.", 0.5)));
+
+        assertEquals(List.of("Allergic to aspirin."), texts(packed));
+    }
+
+    @Test
+    public void truncatesAtAWordBoundary() {
+        assertEquals("Allergic to", ContextPacker.truncate("Allergic to penicillin.", 14));
+        assertEquals("Allergic to penicillin.", ContextPacker.truncate("Allergic to penicillin.", 23));
+        assertEquals("", ContextPacker.truncate("Penicillin", 5));
+    }
+}
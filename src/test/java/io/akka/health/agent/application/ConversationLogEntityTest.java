@@ -0,0 +1,133 @@
+package io.akka.health.agent.application;
+
+import akka.javasdk.testkit.EventSourcedTestKit;
+import io.akka.health.agent.domain.ConversationWindow;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ConversationLogEntityTest {
+
+  private static ConversationLogEntity.Event.MessageAdded message(String text, String origin) {
+    return new ConversationLogEntity.Event.MessageAdded(text, origin, 0);
+  }
+
+  private static List<String> texts(List<ConversationLogEntity.Message> messages) {
+    return messages.stream().map(ConversationLogEntity.Message::message).toList();
+  }
+
+  @Test
+  public void retainsOnlyTheMostRecentMessages() {
+    var testKit = EventSourcedTestKit.of(ConversationLogEntity::new);
+    int total = ConversationLogEntity.MAX_RETAINED_MESSAGES + 5;
+    for (int i = 0; i < total; i++) {
+      testKit.method(ConversationLogEntity::addMessage).invoke(message("m" + i, "user"));
+    }
+
+    var messages = testKit.getState().messages();
+    assertEquals(ConversationLogEntity.MAX_RETAINED_MESSAGES, messages.size());
+    assertEquals(5, messages.getFirst().seq());
+    assertEquals(total - 1, messages.getLast().seq());
+
+    var oldest = testKit.method(ConversationLogEntity::getMessages)
+        .invoke(new ConversationLogEntity.MessagesQuery(7L, null, 10)).getReply();
+    assertEquals(List.of("m5", "m6"), texts(oldest.messages()));
+    assertNull(oldest.nextCursor());
+
+    var after = testKit.method(ConversationLogEntity::getMessages)
+        .invoke(new ConversationLogEntity.MessagesQuery(null, 0L, 2)).getReply();
+    assertEquals(List.of("m5", "m6"), texts(after.messages()));
+  }
+
+  @Test
+  public void pagesMessagesBackwards() {
+    var testKit = EventSourcedTestKit.of(ConversationLogEntity::new);
+    for (int i = 0; i < 5; i++) {
+      testKit.method(ConversationLogEntity::addMessage).invoke(message("m" + i, "user"));
+    }
+
+    var latest = testKit.method(ConversationLogEntity::getMessages)
+        .invoke(new ConversationLogEntity.MessagesQuery(null, null, 2)).getReply();
+    assertEquals(List.of("m3", "m4"), texts(latest.messages()));
+    assertEquals(3L, latest.nextCursor());
+
+    var oldest = testKit.method(ConversationLogEntity::getMessages)
+        .invoke(new ConversationLogEntity.MessagesQuery(1L, null, 2)).getReply();
+    assertEquals(List.of("m0"), texts(oldest.messages()));
+    assertNull(oldest.nextCursor());
+  }
+
+  @Test
+  public void windowStartsWhereTheSummaryEnds() {
+    var testKit = EventSourcedTestKit.of(ConversationLogEntity::new);
+    for (int i = 0; i < 6; i++) {
+      testKit.method(ConversationLogEntity::addMessage).invoke(message("m" + i, i % 2 == 0 ? "user" : "ai"));
+    }
+
+    var candidate = testKit.method(ConversationLogEntity::getCompactionCandidate).invoke(2).getReply();
+    assertEquals(List.of("m0", "m1", "m2", "m3"), texts(candidate.messages()));
+    testKit.method(ConversationLogEntity::updateSummary)
+        .invoke(new ConversationLogEntity.Event.SummaryUpdated("Talked about sleep.", 4));
+
+    var window = testKit.method(ConversationLogEntity::getWindow).invoke(40).getReply();
+    assertEquals("Talked about sleep.", window.summary());
+    assertEquals(List.of(new ConversationWindow.Turn("user", "m4"), new ConversationWindow.Turn("ai", "m5")), window.messages());
+  }
+
+  @Test
+  public void windowHoldsEveryMessageBeforeTheFirstSummary() {
+    var testKit = EventSourcedTestKit.of(ConversationLogEntity::new);
+    for (int i = 0; i < 30; i++) {
+      testKit.method(ConversationLogEntity::addMessage).invoke(message("m" + i, "user"));
+    }
+
+    var window = testKit.method(ConversationLogEntity::getWindow).invoke(40).getReply();
+    assertNull(window.summary());
+    assertEquals(30, window.messages().size());
+  }
+
+  @Test
+  public void keepsTheSummaryThatCoversTheMostMessages() {
+    var testKit = EventSourcedTestKit.of(ConversationLogEntity::new);
+    for (int i = 0; i < 6; i++) {
+      testKit.method(ConversationLogEntity::addMessage).invoke(message("m" + i, "user"));
+    }
+    testKit.method(ConversationLogEntity::updateSummary)
+        .invoke(new ConversationLogEntity.Event.SummaryUpdated("Up to m3.", 4));
+    // a summary of a redelivered event, computed from fewer messages
+    testKit.method(ConversationLogEntity::updateSummary)
+        .invoke(new ConversationLogEntity.Event.SummaryUpdated("Up to m1.", 2));
+
+    var window = testKit.method(ConversationLogEntity::getWindow).invoke(40).getReply();
+    assertEquals("Up to m3.", window.summary());
+    assertEquals(2, window.messages().size());
+  }
+
+  @Test
+  public void capsTheMessagesAfterTheSummary() {
+    var testKit = EventSourcedTestKit.of(ConversationLogEntity::new);
+    for (int i = 0; i < 50; i++) {
+      testKit.method(ConversationLogEntity::addMessage).invoke(message("m" + i, "user"));
+    }
+
+    var window = testKit.method(ConversationLogEntity::getWindow).invoke(40).getReply();
+    assertEquals(40, window.messages().size());
+    assertEquals("m10", window.messages().getFirst().message());
+    assertEquals(50, testKit.method(ConversationLogEntity::getCompactionCandidate).invoke(10).getReply().unsummarized());
+  }
+
+  @Test
+  public void addsAnExchangeAtOnce() {
+    var testKit = EventSourcedTestKit.of(ConversationLogEntity::new);
+    var result = testKit.method(ConversationLogEntity::addExchange)
+        .invoke(new ConversationLogEntity.Exchange("How did I sleep?", "7 hours.", 0));
+
+    assertEquals(2, result.getAllEvents().size());
+    var window = testKit.method(ConversationLogEntity::getWindow).invoke(40).getReply();
+    assertEquals(List.of(new ConversationWindow.Turn("user", "How did I sleep?"), new ConversationWindow.Turn("ai", "7 hours.")),
+        window.messages());
+  }
+}
@@ -0,0 +1,39 @@
+package io.akka.health.agent.application;
+
+import akka.javasdk.testkit.KeyValueEntityTestKit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class DataVersionEntityTest {
+
+  @Test
+  public void changesOncePerSensorWindow() {
+    var testKit = KeyValueEntityTestKit.of(DataVersionEntity::new);
+    testKit.method(DataVersionEntity::advanceSensorWindow).invoke(100L);
+    long version = testKit.method(DataVersionEntity::getVersion).invoke().getReply();
+
+    // more readings in the same window, or redelivered ones of an earlier window
+    testKit.method(DataVersionEntity::advanceSensorWindow).invoke(100L);
+    testKit.method(DataVersionEntity::advanceSensorWindow).invoke(99L);
+    assertEquals(version, testKit.method(DataVersionEntity::getVersion).invoke().getReply());
+
+    testKit.method(DataVersionEntity::advanceSensorWindow).invoke(101L);
+    assertNotEquals(version, testKit.method(DataVersionEntity::getVersion).invoke().getReply());
+  }
+
+  @Test
+  public void changesOnEveryBump() {
+    var testKit = KeyValueEntityTestKit.of(DataVersionEntity::new);
+    testKit.method(DataVersionEntity::advanceSensorWindow).invoke(100L);
+    long version = testKit.method(DataVersionEntity::getVersion).invoke().getReply();
+
+    testKit.method(DataVersionEntity::bump).invoke();
+    long bumped = testKit.method(DataVersionEntity::getVersion).invoke().getReply();
+    assertNotEquals(version, bumped);
+
+    testKit.method(DataVersionEntity::bump).invoke();
+    assertNotEquals(bumped, testKit.method(DataVersionEntity::getVersion).invoke().getReply());
+  }
+}
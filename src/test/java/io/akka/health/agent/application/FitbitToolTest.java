@@ -0,0 +1,75 @@
+package io.akka.health.agent.application;
+
+import io.akka.health.fitbit.FitbitClient;
+import io.akka.health.fitbit.domain.ActivityLogList;
+import io.akka.health.fitbit.domain.DailyActivitySummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FitbitToolTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 4, 21);
+    private static final LocalDate END = LocalDate.of(2025, 4, 27);
+
+    private static ActivityLogList.ActivityLog log(String name, String startTime) {
+        return new ActivityLogList.ActivityLog(name, 1L, 2L, "Sports", 300, 3_600_000L, true, 1L, startTime, 5000);
+    }
+
+    private static ActivityLogList page(String next, ActivityLogList.ActivityLog... logs) {
+        return new ActivityLogList(List.of(logs), new ActivityLogList.Pagination(100, next, 0, "", "asc"));
+    }
+
+    @Test
+    public void followsTheNextLinksUntilPastTheEndDate() {
+        var fitbitClient = mock(FitbitClient.class);
+        when(fitbitClient.getActivityLogList(START, 100)).thenReturn(
+                page("https://api.fitbit.com/page2", log("Tennis", "2025-04-21T18:00:00.000+02:00")));
+        when(fitbitClient.getActivityLogListPage("https://api.fitbit.com/page2")).thenReturn(
+                page("https://api.fitbit.com/page3",
+                        log("Gym", "2025-04-26T07:30:00.000+02:00"),
+                        log("Run", "2025-04-28T07:30:00.000+02:00")));
+        var tool = new FitbitTool(fitbitClient, null, 1, null);
+
+        var activities = tool.getSportActivitiesInWeek(START, END);
+
+        assertEquals(List.of("Tennis", "Gym"), activities.stream().map(DailyActivitySummary.Activity::name).toList());
+        assertEquals("07:30", activities.get(1).startTime());
+        // the second page already passed the end date
+        verify(fitbitClient, never()).getActivityLogListPage("https://api.fitbit.com/page3");
+    }
+
+    @Test
+    public void stopsWithoutANextLink() {
+        var fitbitClient = mock(FitbitClient.class);
+        when(fitbitClient.getActivityLogList(START, 100)).thenReturn(page("", log("Tennis", "2025-04-22T18:00:00.000+02:00")));
+        var tool = new FitbitTool(fitbitClient, null, 1, null);
+
+        assertEquals(1, tool.getSportActivitiesInWeek(START, END).size());
+        verify(fitbitClient, never()).getActivityLogListPage(anyString());
+    }
+
+    @Test
+    public void skipsEntriesWithoutAStartTime() {
+        var fitbitClient = mock(FitbitClient.class);
+        when(fitbitClient.getActivityLogList(START, 100)).thenReturn(
+                page(null, log("Tennis", null), log("Gym", "2025-04-22T18:00:00.000+02:00")));
+        var tool = new FitbitTool(fitbitClient, null, 1, null);
+
+        assertEquals(List.of("Gym"), tool.getSportActivitiesInWeek(START, END).stream().map(DailyActivitySummary.Activity::name).toList());
+
+        var withoutStartTime = log("Tennis", null).toActivity();
+        assertNull(withoutStartTime.startDate());
+        assertNull(withoutStartTime.startTime());
+        assertEquals(false, withoutStartTime.hasStartTime());
+    }
+}
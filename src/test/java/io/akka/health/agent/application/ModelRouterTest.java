@@ -0,0 +1,120 @@
+package io.akka.health.agent.application;
+
+import io.akka.health.agent.domain.ModelTier;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModelRouterTest {
+
+    private final ModelRouter router = new ModelRouter();
+
+    @Test
+    public void routesSingleMetricQuestionsToFastTier() {
+        assertEquals(ModelTier.FAST, router.route("How many steps did I walk yesterday?"));
+        assertEquals(ModelTier.FAST, router.route("What was my resting heart rate on 2025-04-26?"));
+    }
+
+    @Test
+    public void routesMultiMetricQuestionsToStrongTier() {
+        assertEquals(ModelTier.STRONG, router.route("How did my sleep affect my heart rate?"));
+    }
+
+    @Test
+    public void routesTrendQuestionsToStrongTier() {
+        assertEquals(ModelTier.STRONG, router.route("What is the trend of my steps over the last month?"));
+    }
+
+    @Test
+    public void routesMedicalQuestionsToStrongTier() {
+        assertEquals(ModelTier.STRONG, router.route("What did the doctor prescribe at my last visit?"));
+    }
+
+    @Test
+    public void acceptsRegularAnswers() {
+        assertTrue(router.isAcceptable("You walked 8,412 steps yesterday."));
+    }
+
+    @Test
+    public void acceptsAnswersMentioningAnError() {
+        assertTrue(router.isAcceptable("A reading of 220 bpm is most likely a measurement error of the sensor."));
+    }
+
+    @Test
+    public void rejectsEmptyAnswers() {
+        assertFalse(router.isAcceptable(null));
+        assertFalse(router.isAcceptable("  "));
+    }
+
+    @Test
+    public void rejectsAnswersWhereTheDataWasNotRetrieved() {
+        assertFalse(router.isAcceptable("I'm unable to access your sleep data right now."));
+        assertFalse(router.isAcceptable("I failed to retrieve the heart rate for that day."));
+        assertFalse(router.isAcceptable("Sorry, an error occurred while getting your steps."));
+    }
+
+    @Test
+    public void countsEscalationsPerTier() {
+        router.recordLatency(ModelTier.FAST, 100);
+        router.recordLatency(ModelTier.FAST, 300);
+        router.recordEscalation(ModelTier.FAST);
+
+        var fast = router.stats().tiers().get(ModelTier.FAST);
+        assertEquals(2, fast.requests());
+        assertEquals(1, fast.escalatedFrom());
+        assertEquals(200, fast.averageLatencyMillis());
+    }
+
+    @Test
+    public void escalatesWhenTheFastTierFails() {
+        var asked = new ArrayList<ModelTier>();
+        var answer = router.answer(ModelTier.FAST, tier -> {
+            asked.add(tier);
+            if (tier == ModelTier.FAST)
+                throw new IllegalStateException("model unavailable");
+            return "You slept 7 hours.";
+        });
+
+        assertEquals("You slept 7 hours.", answer);
+        assertEquals(List.of(ModelTier.FAST, ModelTier.STRONG), asked);
+        assertEquals(1, router.stats().tiers().get(ModelTier.FAST).escalatedFrom());
+        assertEquals(1, router.stats().tiers().get(ModelTier.FAST).requests());
+        assertEquals(1, router.stats().tiers().get(ModelTier.STRONG).requests());
+    }
+
+    @Test
+    public void escalatesUnacceptableFastAnswers() {
+        var answer = router.answer(ModelTier.FAST,
+                tier -> tier == ModelTier.FAST ? "I couldn't get your sleep data." : "You slept 7 hours.");
+
+        assertEquals("You slept 7 hours.", answer);
+        assertEquals(1, router.stats().tiers().get(ModelTier.FAST).escalatedFrom());
+    }
+
+    @Test
+    public void keepsAcceptableFastAnswers() {
+        var asked = new ArrayList<ModelTier>();
+        var answer = router.answer(ModelTier.FAST, tier -> {
+            asked.add(tier);
+            return "You walked 8,412 steps yesterday.";
+        });
+
+        assertEquals("You walked 8,412 steps yesterday.", answer);
+        assertEquals(List.of(ModelTier.FAST), asked);
+        assertEquals(0, router.stats().tiers().get(ModelTier.FAST).escalatedFrom());
+    }
+
+    @Test
+    public void throwsFailuresOfTheStrongTier() {
+        assertThrows(IllegalStateException.class, () -> router.answer(ModelTier.STRONG, tier -> {
+            throw new IllegalStateException("model unavailable");
+        }));
+        assertEquals(1, router.stats().tiers().get(ModelTier.STRONG).requests());
+    }
+}
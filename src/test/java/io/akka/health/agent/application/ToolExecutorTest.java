@@ -0,0 +1,100 @@
+package io.akka.health.agent.application;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ToolExecutorTest {
+
+    private static <T> T sleepThen(long millis, T value) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        return value;
+    }
+
+    @Test
+    public void returnsResultsInTheOrderOfTheCalls() {
+        var executor = new ToolExecutor(4, 4, Duration.ofSeconds(5));
+        var results = executor.invokeAll(List.of(
+                new ToolExecutor.Call<>("slow", () -> sleepThen(200, "a")),
+                new ToolExecutor.Call<>("medium", () -> sleepThen(100, "b")),
+                new ToolExecutor.Call<>("fast", () -> "c")));
+
+        assertEquals(List.of("slow", "medium", "fast"), results.stream().map(ToolExecutor.Result::name).toList());
+        assertEquals(List.of("a", "b", "c"), results.stream().map(ToolExecutor.Result::value).toList());
+    }
+
+    @Test
+    public void cancelsACallThatTimesOut() throws InterruptedException {
+        var executor = new ToolExecutor(2, 2, Duration.ofMillis(100));
+        var interrupted = new CountDownLatch(1);
+        var results = executor.invokeAll(List.<ToolExecutor.Call<String>>of(
+                new ToolExecutor.Call<>("hanging", () -> {
+                    try {
+                        Thread.sleep(10_000);
+                        return "too late";
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        return null;
+                    }
+                }),
+                new ToolExecutor.Call<>("quick", () -> "done")));
+
+        assertEquals("timed out after 100 ms", results.get(0).error());
+        assertNull(results.get(0).value());
+        assertEquals("done", results.get(1).value());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "the timed out call was not interrupted");
+    }
+
+    @Test
+    public void runsCallsOnTheCallerWhenSaturated() {
+        // one thread, one queued call, the third call runs on the caller
+        var executor = new ToolExecutor(1, 1, Duration.ofSeconds(5));
+        var release = new CountDownLatch(1);
+        var caller = Thread.currentThread().getName();
+        var results = executor.invokeAll(List.of(
+                new ToolExecutor.Call<>("blocking", () -> {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return Thread.currentThread().getName();
+                }),
+                new ToolExecutor.Call<>("queued", () -> Thread.currentThread().getName()),
+                new ToolExecutor.Call<>("overflow", () -> {
+                    release.countDown();
+                    return Thread.currentThread().getName();
+                })));
+
+        assertTrue(results.get(0).value().startsWith("tool-executor-"));
+        assertTrue(results.get(1).value().startsWith("tool-executor-"));
+        assertEquals(caller, results.get(2).value());
+    }
+
+    @Test
+    public void aFailingCallDoesNotFailTheOthers() {
+        var executor = new ToolExecutor(4, 4, Duration.ofSeconds(5));
+        var results = executor.invokeAll(List.<ToolExecutor.Call<Integer>>of(
+                new ToolExecutor.Call<>("steps", () -> 8000),
+                new ToolExecutor.Call<>("sleep", () -> {
+                    throw new IllegalStateException("Fitbit unavailable");
+                }),
+                new ToolExecutor.Call<>("weight", () -> 70)));
+
+        assertEquals(8000, results.get(0).value());
+        assertEquals("Fitbit unavailable", results.get(1).error());
+        assertNull(results.get(1).value());
+        assertEquals(70, results.get(2).value());
+    }
+}
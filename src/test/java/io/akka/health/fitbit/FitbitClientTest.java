@@ -0,0 +1,147 @@
+package io.akka.health.fitbit;
+
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.headers.RawHeader;
+import akka.javasdk.http.HttpClient;
+import akka.javasdk.http.RequestBuilder;
+import akka.javasdk.http.StrictResponse;
+import akka.util.ByteString;
+import io.akka.health.fitbit.domain.WeightLogData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FitbitClientTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 4, 26);
+    private static final String WEIGHT_LOG = "{\"weight\":[]}";
+
+    private HttpClient httpClient;
+    private RequestBuilder<ByteString> request;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        httpClient = mock(HttpClient.class);
+        request = mock(RequestBuilder.class);
+        when(httpClient.GET(anyString())).thenReturn(request);
+        when(request.addCredentials(any())).thenReturn(request);
+    }
+
+    private FitbitClient client(int maxRetries) {
+        return new FitbitClient(
+                httpClient,
+                new FitbitCache(100, Duration.ofMinutes(5), Duration.ofHours(24)),
+                new FitbitRateLimiter(150),
+                new FitbitClient.RateLimitSettings(maxRetries, Duration.ofSeconds(1), false));
+    }
+
+    private static StrictResponse<ByteString> ok(String body) {
+        return new StrictResponse<>(HttpResponse.create().withStatus(200), ByteString.fromString(body));
+    }
+
+    private static StrictResponse<ByteString> tooManyRequests() {
+        var response = HttpResponse.create().withStatus(429).addHeader(RawHeader.create("Retry-After", "0"));
+        return new StrictResponse<>(response, ByteString.emptyByteString());
+    }
+
+    @Test
+    public void sharesOneRequestBetweenConcurrentCallers() {
+        var response = new CompletableFuture<StrictResponse<ByteString>>();
+        when(request.invokeAsync()).thenReturn(response);
+        var client = client(0);
+
+        var first = client.getWeightLogByDateAsync(DATE).toCompletableFuture();
+        var second = client.getWeightLogByDateAsync(DATE).toCompletableFuture();
+        response.complete(ok(WEIGHT_LOG));
+
+        assertEquals(new WeightLogData(List.of()), first.join());
+        assertSame(first.join(), second.join());
+        assertEquals(1, client.coalescedRequests());
+        verify(request, times(1)).invokeAsync();
+    }
+
+    @Test
+    public void servesRepeatedRequestsFromTheCache() {
+        when(request.invokeAsync()).thenReturn(CompletableFuture.completedFuture(ok(WEIGHT_LOG)));
+        var client = client(0);
+
+        client.getWeightLogByDate(DATE);
+        client.getWeightLogByDate(DATE);
+
+        verify(request, times(1)).invokeAsync();
+        assertEquals(1, client.cacheStats().hits());
+    }
+
+    @Test
+    public void retriesAfterTheRateLimit() {
+        when(request.invokeAsync()).thenReturn(
+                CompletableFuture.completedFuture(tooManyRequests()),
+                CompletableFuture.completedFuture(ok(WEIGHT_LOG)));
+        var client = client(2);
+
+        assertEquals(new WeightLogData(List.of()), client.getWeightLogByDate(DATE));
+        verify(request, times(2)).invokeAsync();
+    }
+
+    @Test
+    public void failsOnceTheRetriesAreUsed() {
+        when(request.invokeAsync()).thenReturn(CompletableFuture.completedFuture(tooManyRequests()));
+        var client = client(1);
+
+        assertThrows(FitbitRateLimitException.class, () -> client.getWeightLogByDate(DATE));
+        verify(request, times(2)).invokeAsync();
+    }
+
+    @Test
+    public void releasesARequestThatFailsBeforeItIsSent() {
+        when(request.invokeAsync())
+                .thenThrow(new IllegalStateException("connection pool closed"))
+                .thenReturn(CompletableFuture.completedFuture(ok(WEIGHT_LOG)));
+        var client = client(0);
+
+        var failed = assertThrows(CompletionException.class,
+                () -> client.getWeightLogByDateAsync(DATE).toCompletableFuture().join());
+        assertInstanceOf(IllegalStateException.class, failed.getCause());
+
+        // a new call is sent instead of joining the failed one
+        assertEquals(new WeightLogData(List.of()), client.getWeightLogByDateAsync(DATE).toCompletableFuture().join());
+        verify(request, times(2)).invokeAsync();
+    }
+
+    @Test
+    public void followsTheNextLinkRelativeToTheBaseUrl() {
+        when(request.invokeAsync()).thenReturn(CompletableFuture.completedFuture(ok("{\"activities\":[]}")));
+        var client = client(0);
+
+        client.getActivityLogListPage("https://api.fitbit.com/1/user/-/activities/list.json?afterDate=2025-04-20&sort=asc&offset=100&limit=100");
+
+        verify(httpClient).GET("/1/user/-/activities/list.json?afterDate=2025-04-20&sort=asc&offset=100&limit=100");
+    }
+
+    @Test
+    public void rejectsNextLinksToOtherHosts() {
+        var client = client(0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> client.getActivityLogListPage("https://attacker.example.com/1/user/-/activities/list.json?offset=100"));
+        verify(httpClient, never()).GET(anyString());
+    }
+}
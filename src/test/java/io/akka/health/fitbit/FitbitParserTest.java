@@ -0,0 +1,96 @@
+package io.akka.health.fitbit;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares {@link FitbitParser} with binding the same payload the way it was done before, with
+ * {@link ObjectMapper#readValue(String, Class)} on the decoded body into one record per data point.
+ */
+public class FitbitParserTest {
+
+    private static byte[] payload;
+
+    // the model the heart rate was bound to before the columnar series
+    record BaselineHeartRate(
+            @JsonProperty("activities-heart-intraday") BaselineIntraday activitiesHeartIntraday) {}
+
+    record BaselineIntraday(@JsonProperty("dataset") List<BaselineDataPoint> dataset) {}
+
+    record BaselineDataPoint(@JsonProperty("time") LocalTime time, @JsonProperty("value") int value) {}
+
+    @BeforeAll
+    public static void loadPayload() throws IOException {
+        try (var in = Objects.requireNonNull(FitbitParserTest.class.getResourceAsStream("/fitbit/heart-rate-intraday.json"))) {
+            payload = in.readAllBytes();
+        }
+    }
+
+    private static ObjectMapper baselineMapper() {
+        return new ObjectMapper()
+                .findAndRegisterModules()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @Test
+    public void readsTheSameHeartRatesAsObjectMapper() throws Exception {
+        var parsed = new FitbitParser().parseHeartRateData(payload);
+        var baseline = baselineMapper().readValue(new String(payload, StandardCharsets.UTF_8), BaselineHeartRate.class);
+
+        var series = parsed.activitiesHeartIntraday().dataset();
+        var points = baseline.activitiesHeartIntraday().dataset();
+        assertEquals(points.size(), series.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(points.get(i).time(), series.time(i));
+            assertEquals(points.get(i).value(), series.bpm(i));
+        }
+        assertEquals(59, parsed.activitiesHeart().getFirst().value().restingHeartRate());
+    }
+
+    /**
+     * Not a rigorous benchmark, the numbers are only printed to compare both on the same machine. Run with
+     * {@code mvn test -Dtest=FitbitParserTest}.
+     */
+    @Test
+    public void comparesWithObjectMapperReadValue() throws Exception {
+        var parser = new FitbitParser();
+        var mapper = baselineMapper();
+        int iterations = 2_000;
+
+        // warm up both paths so the JIT has compiled them before measuring
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += parser.parseHeartRateData(payload).activitiesHeartIntraday().dataset().size();
+            checksum += mapper.readValue(new String(payload, StandardCharsets.UTF_8), BaselineHeartRate.class)
+                    .activitiesHeartIntraday().dataset().size();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            checksum += parser.parseHeartRateData(payload).activitiesHeartIntraday().dataset().size();
+        }
+        long parserNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            checksum += mapper.readValue(new String(payload, StandardCharsets.UTF_8), BaselineHeartRate.class)
+                    .activitiesHeartIntraday().dataset().size();
+        }
+        long baselineNanos = System.nanoTime() - start;
+
+        System.out.printf("Heart rate payload of %d bytes: FitbitParser %.1f us/op, ObjectMapper.readValue %.1f us/op%n",
+                payload.length, parserNanos / 1000.0 / iterations, baselineNanos / 1000.0 / iterations);
+        assertEquals(4L * iterations * 1440, checksum);
+    }
+}
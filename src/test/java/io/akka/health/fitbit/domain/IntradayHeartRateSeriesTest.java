@@ -0,0 +1,101 @@
+package io.akka.health.fitbit.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntradayHeartRateSeriesTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static IntradayHeartRateSeries series(String dataset) throws Exception {
+        return objectMapper.readValue("{\"dataset\":" + dataset + "}", HeartRateData.IntradayHeartRate.class).dataset();
+    }
+
+    @Test
+    public void readsTheDataset() throws Exception {
+        var series = series("[{\"time\":\"08:00:00\",\"value\":61},{\"time\":\"08:00:05\",\"value\":63,\"extra\":{\"a\":1}},{\"time\":\"08:01\",\"value\":65}]");
+
+        assertEquals(3, series.size());
+        assertEquals(LocalTime.of(8, 0, 5), series.time(1));
+        assertEquals(63, series.bpm(1));
+        // "HH:mm" times of minute datasets
+        assertEquals(LocalTime.of(8, 1), series.time(2));
+    }
+
+    @Test
+    public void sortsAnUnorderedDatasetAndSkipsIncompletePoints() throws Exception {
+        var series = series("[{\"time\":\"09:00:00\",\"value\":70},{\"time\":\"08:00:00\",\"value\":60},{\"value\":99},{\"time\":\"08:30:00\"}]");
+
+        assertEquals(2, series.size());
+        assertEquals(LocalTime.of(8, 0), series.time(0));
+        assertEquals(60, series.bpm(0));
+        assertEquals(70, series.bpm(1));
+    }
+
+    @Test
+    public void readsAMissingDatasetAsNull() throws Exception {
+        assertNull(objectMapper.readValue("{}", HeartRateData.IntradayHeartRate.class).dataset());
+    }
+
+    @Test
+    public void emptySeries() throws Exception {
+        var series = series("[]");
+
+        assertTrue(series.isEmpty());
+        assertEquals(-1, series.min());
+        assertEquals(-1, series.max());
+        assertEquals(0, series.mostExtreme(50, 100));
+        assertEquals(0, series.countOutside(50, 100));
+        assertTrue(series.slice(LocalTime.MIN, LocalTime.MAX).isEmpty());
+        assertTrue(IntradayHeartRateSeries.EMPTY.isEmpty());
+    }
+
+    @Test
+    public void slicesFromStartInclusiveToEndExclusive() throws Exception {
+        var series = series("[{\"time\":\"08:00:00\",\"value\":60},{\"time\":\"08:00:10\",\"value\":61},{\"time\":\"08:00:20\",\"value\":62},{\"time\":\"08:00:30\",\"value\":63}]");
+
+        var exact = series.slice(LocalTime.of(8, 0, 10), LocalTime.of(8, 0, 30));
+        assertEquals(2, exact.size());
+        assertEquals(61, exact.bpm(0));
+        assertEquals(62, exact.bpm(1));
+
+        // bounds between points
+        var between = series.slice(LocalTime.of(8, 0, 5), LocalTime.of(8, 0, 25));
+        assertEquals(2, between.size());
+        assertEquals(61, between.bpm(0));
+
+        assertEquals(4, series.slice(LocalTime.of(7, 0), LocalTime.of(9, 0)).size());
+        assertTrue(series.slice(LocalTime.of(9, 0), LocalTime.of(10, 0)).isEmpty());
+        assertTrue(series.slice(LocalTime.of(8, 0, 20), LocalTime.of(8, 0, 10)).isEmpty());
+
+        // slicing a slice stays within it
+        var nested = exact.slice(LocalTime.of(8, 0), LocalTime.of(9, 0));
+        assertEquals(2, nested.size());
+        assertEquals(62, nested.max());
+    }
+
+    @Test
+    public void countsPointsOutsideTheRange() throws Exception {
+        var series = series("[{\"time\":\"08:00:00\",\"value\":45},{\"time\":\"08:00:10\",\"value\":50},{\"time\":\"08:00:20\",\"value\":100},{\"time\":\"08:00:30\",\"value\":101}]");
+
+        // the thresholds themselves are within the range
+        assertEquals(2, series.countOutside(50, 100));
+        assertEquals(1, series.slice(LocalTime.of(8, 0, 10), LocalTime.MAX).countOutside(50, 100));
+    }
+
+    @Test
+    public void mostExtremeIsTheEarliestOnTies() throws Exception {
+        var series = series("[{\"time\":\"08:00:00\",\"value\":70},{\"time\":\"08:00:10\",\"value\":110},{\"time\":\"08:00:20\",\"value\":40},{\"time\":\"08:00:30\",\"value\":112}]");
+
+        // 110 and 40 both deviate by 10 from 50-100, 110 comes first
+        assertEquals(110, series.slice(LocalTime.MIN, LocalTime.of(8, 0, 30)).mostExtreme(50, 100));
+        assertEquals(112, series.mostExtreme(50, 100));
+        assertEquals(0, series.mostExtreme(30, 120));
+    }
+}
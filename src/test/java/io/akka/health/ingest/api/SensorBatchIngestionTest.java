@@ -0,0 +1,144 @@
+package io.akka.health.ingest.api;
+
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import io.akka.health.ingest.domain.SensorData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SensorBatchIngestionTest {
+
+  private static ActorSystem system;
+  private static Materializer materializer;
+
+  @BeforeAll
+  public static void start() {
+    system = ActorSystem.create("SensorBatchIngestionTest");
+    materializer = Materializer.matFromSystem(system);
+  }
+
+  @AfterAll
+  public static void stop() {
+    system.terminate();
+  }
+
+  /**
+   * Stores the writes in memory, failing the ones of the given user.
+   */
+  private static final class RecordingWriter implements SensorBatchIngestion.Writer {
+    final Map<String, List<List<SensorData>>> writes = new ConcurrentHashMap<>();
+    final String failingUser;
+
+    RecordingWriter(String failingUser) {
+      this.failingUser = failingUser;
+    }
+
+    @Override
+    public CompletableFuture<?> write(String userId, List<SensorData> readings) {
+      if (userId.equals(failingUser)) {
+        return CompletableFuture.failedFuture(new IllegalStateException("store unavailable"));
+      }
+      writes.computeIfAbsent(userId, __ -> new ArrayList<>()).add(readings);
+      return CompletableFuture.completedFuture(null);
+    }
+
+    int stored(String userId) {
+      return writes.getOrDefault(userId, List.of()).stream().mapToInt(List::size).sum();
+    }
+  }
+
+  private static String reading(String userId, int i) {
+    return "{\"userId\":\"" + userId + "\",\"source\":\"watch\",\"description\":\"heart rate\",\"value\":\"" + (60 + i) + " bpm\"}";
+  }
+
+  private static SensorBatchIngestion.Outcome ingest(RecordingWriter writer, int chunkSize, String... parts) {
+    var body = Source.from(List.of(parts)).map(ByteString::fromString);
+    return new SensorBatchIngestion(writer, 64 * 1024, chunkSize).ingest(body, materializer).toCompletableFuture().join();
+  }
+
+  @Test
+  public void ingestsAJsonArray() {
+    var writer = new RecordingWriter(null);
+    // split mid reading, as the request body arrives in arbitrary pieces
+    var body = "[" + reading("u1", 0) + "," + reading("u2", 1) + "," + reading("u1", 2) + "]";
+    var outcome = ingest(writer, 10, body.substring(0, 30), body.substring(30));
+
+    assertEquals(new SensorBatchIngestion.Outcome.Completed(3), outcome);
+    assertEquals(2, writer.stored("u1"));
+    assertEquals(1, writer.stored("u2"));
+    assertEquals("61 bpm", writer.writes.get("u2").getFirst().getFirst().value());
+  }
+
+  @Test
+  public void ingestsNdjson() {
+    var writer = new RecordingWriter(null);
+    var outcome = ingest(writer, 10, reading("u1", 0) + "\n", reading("u1", 1) + "\n" + reading("u1", 2), "\n");
+
+    assertEquals(new SensorBatchIngestion.Outcome.Completed(3), outcome);
+    assertEquals(List.of("60 bpm", "61 bpm", "62 bpm"),
+        writer.writes.get("u1").getFirst().stream().map(SensorData::value).toList());
+  }
+
+  @Test
+  public void persistsInChunksPerUser() {
+    var writer = new RecordingWriter(null);
+    var body = IntStream.range(0, 7).mapToObj(i -> reading(i % 2 == 0 ? "u1" : "u2", i)).collect(Collectors.joining("\n"));
+    var outcome = ingest(writer, 3, body);
+
+    assertEquals(new SensorBatchIngestion.Outcome.Completed(7), outcome);
+    // chunks of readings 1-3, 4-6 and 7
+    assertEquals(List.of(2, 1, 1), writer.writes.get("u1").stream().map(List::size).toList());
+    assertEquals(List.of(1, 2), writer.writes.get("u2").stream().map(List::size).toList());
+  }
+
+  @Test
+  public void rejectsAnInvalidReadingWithoutPersistingItsChunk() {
+    var writer = new RecordingWriter(null);
+    var body = String.join("\n", reading("u1", 0), reading("u1", 1), reading("u1", 2), "{\"source\":\"watch\"}");
+    var outcome = ingest(writer, 2, body);
+
+    var rejected = assertInstanceOf(SensorBatchIngestion.Outcome.Rejected.class, outcome);
+    assertEquals("Reading 4 has no userId", rejected.reason());
+    assertEquals(2, rejected.stored());
+    assertEquals(2, writer.stored("u1"));
+  }
+
+  @Test
+  public void rejectsMalformedJson() {
+    var outcome = ingest(new RecordingWriter(null), 10, reading("u1", 0) + "\n{\"userId\": 1, \"values\": \"x\"}");
+
+    var rejected = assertInstanceOf(SensorBatchIngestion.Outcome.Rejected.class, outcome);
+    assertEquals("Reading 2 is not a valid sensor reading", rejected.reason());
+  }
+
+  @Test
+  public void countsOnlyTheWritesThatSucceeded() {
+    var writer = new RecordingWriter("u2");
+    var body = IntStream.range(0, 6).mapToObj(i -> reading(i < 4 ? "u1" : "u2", i)).collect(Collectors.joining("\n"));
+    var outcome = ingest(writer, 2, body + "\n" + reading("u1", 6));
+
+    var failed = assertInstanceOf(SensorBatchIngestion.Outcome.Failed.class, outcome);
+    assertEquals(4, failed.stored());
+    assertEquals(List.of("u2"), failed.failedUsers());
+    assertEquals(5, failed.firstReading());
+    assertEquals(6, failed.lastReading());
+    // nothing after the failed chunk
+    assertEquals(4, writer.stored("u1"));
+    assertTrue(failed.cause().getMessage().contains("store unavailable"));
+  }
+}
@@ -0,0 +1,111 @@
+package io.akka.health.ingest.application;
+
+import akka.javasdk.testkit.EventSourcedTestKit;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import io.akka.health.ingest.domain.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SensorEntityTest {
+
+  private static Config retention(int maxReadingsPerSensor, String maxAge) {
+    return ConfigFactory.parseString("""
+        health-agent.sensor.retention {
+          max-readings-per-sensor = %d
+          max-age = %s
+        }
+        """.formatted(maxReadingsPerSensor, maxAge));
+  }
+
+  private static EventSourcedTestKit<SensorEntity.State, SensorEntity.Event, SensorEntity> testKit(Config config) {
+    return EventSourcedTestKit.of("alice", context -> new SensorEntity(context, config));
+  }
+
+  private static SensorData heartRate(long timestamp, int bpm) {
+    return new SensorData("alice", "smartwatch", "heart-rate", bpm + " bpm", null, null, timestamp);
+  }
+
+  private static List<Long> timestamps(SensorEntity.ReadingsPage page) {
+    return page.data().stream().map(SensorData::timestamp).toList();
+  }
+
+  @Test
+  public void keepsTheMostRecentReadingsPerSensor() {
+    var testKit = testKit(retention(3, "30d"));
+    testKit.method(SensorEntity::addDataBatch)
+        .invoke(IntStream.rangeClosed(1, 5).mapToObj(i -> heartRate(i, 60 + i)).toList());
+    testKit.method(SensorEntity::addData)
+        .invoke(new SensorData("alice", "cuff", "blood pressure", "120/80 mmHg", null, null, 10L));
+
+    var heartRates = testKit.getState().data().get("heart rate");
+    assertEquals(List.of(3L, 4L, 5L), heartRates.stream().map(reading -> reading.data().timestamp()).toList());
+    // the bound applies per sensor, the other sensor keeps its reading
+    assertEquals(1, testKit.getState().data().get("blood pressure").size());
+  }
+
+  @Test
+  public void evictsReadingsOlderThanTheMaxAge() {
+    var now = new AtomicReference<>(Instant.parse("2025-04-26T08:00:00Z"));
+    var testKit = EventSourcedTestKit.of("alice", context -> new SensorEntity(context, retention(1000, "30d"), now::get));
+    testKit.method(SensorEntity::addData).invoke(heartRate(1, 61));
+    now.set(now.get().plus(Duration.ofDays(30)));
+    // exactly at the max age the first reading is kept
+    testKit.method(SensorEntity::addData).invoke(heartRate(2, 62));
+    assertEquals(2, testKit.getState().data().get("heart rate").size());
+
+    now.set(now.get().plusMillis(1));
+    testKit.method(SensorEntity::addData).invoke(heartRate(3, 63));
+
+    var heartRates = testKit.getState().data().get("heart rate");
+    assertEquals(List.of(2L, 3L), heartRates.stream().map(reading -> reading.data().timestamp()).toList());
+  }
+
+  @Test
+  public void parsesTheValuesAtIngestion() {
+    var testKit = testKit(retention(1000, "30d"));
+    testKit.method(SensorEntity::addData)
+        .invoke(new SensorData("alice", "cuff", "blood-pressure", "120/80 mmHg", null, null, 10L));
+
+    var reading = testKit.getState().data().get("blood pressure").getFirst().data();
+    assertEquals(List.of(120.0, 80.0), reading.values());
+    assertEquals("mmHg", reading.unit());
+  }
+
+  @Test
+  public void pagesReadingsNewestFirst() {
+    var testKit = testKit(retention(1000, "30d"));
+    testKit.method(SensorEntity::addDataBatch)
+        .invoke(IntStream.rangeClosed(1, 5).mapToObj(i -> heartRate(i, 60 + i)).toList());
+
+    var first = testKit.method(SensorEntity::getReadings)
+        .invoke(new SensorEntity.ReadingsQuery("heart rate", null, null, 2, 0)).getReply();
+    assertEquals(List.of(5L, 4L), timestamps(first));
+    assertEquals(5, first.total());
+    assertEquals(2, first.nextOffset());
+
+    var last = testKit.method(SensorEntity::getReadings)
+        .invoke(new SensorEntity.ReadingsQuery("heart rate", null, null, 2, 4)).getReply();
+    assertEquals(List.of(1L), timestamps(last));
+    assertNull(last.nextOffset());
+  }
+
+  @Test
+  public void filtersReadingsByTimeRange() {
+    var testKit = testKit(retention(1000, "30d"));
+    testKit.method(SensorEntity::addDataBatch)
+        .invoke(IntStream.rangeClosed(1, 5).mapToObj(i -> heartRate(i, 60 + i)).toList());
+
+    var page = testKit.method(SensorEntity::getReadings)
+        .invoke(new SensorEntity.ReadingsQuery(null, 2L, 4L, 10, 0)).getReply();
+    assertEquals(List.of(4L, 3L, 2L), timestamps(page));
+  }
+}
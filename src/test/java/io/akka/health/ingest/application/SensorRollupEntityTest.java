@@ -0,0 +1,29 @@
+package io.akka.health.ingest.application;
+
+import akka.javasdk.testkit.KeyValueEntityTestKit;
+import io.akka.health.ingest.domain.SensorRollup;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SensorRollupEntityTest {
+
+  private static SensorRollupEntity.AddReading reading(double value, long sequence) {
+    return new SensorRollupEntity.AddReading("user-1", "heart rate", SensorRollup.HOUR, 0, "bpm", List.of(value), sequence);
+  }
+
+  @Test
+  public void ignoresRedeliveredReadings() {
+    var testKit = KeyValueEntityTestKit.of(SensorRollupEntity::new);
+    testKit.method(SensorRollupEntity::add).invoke(reading(60, 1));
+    testKit.method(SensorRollupEntity::add).invoke(reading(80, 2));
+    testKit.method(SensorRollupEntity::add).invoke(reading(80, 2));
+
+    var rollup = testKit.method(SensorRollupEntity::getRollup).invoke().getReply();
+    assertEquals(2, rollup.count());
+    assertEquals(List.of(70.0), rollup.average());
+    assertEquals(2, testKit.getState().lastSequence());
+  }
+}
@@ -0,0 +1,48 @@
+package io.akka.health.ingest.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SensorRollupTest {
+
+  @Test
+  public void averagesPerComponent() {
+    var rollup = SensorRollup.of("blood pressure", SensorRollup.HOUR, 0, "mmHg", List.of(120.0, 80.0))
+        .add(List.of(130.0, 90.0), null);
+
+    assertEquals(2, rollup.count());
+    assertEquals(List.of(125.0, 85.0), rollup.average());
+    assertEquals(List.of(120.0, 80.0), rollup.min());
+    assertEquals(List.of(130.0, 90.0), rollup.max());
+    assertEquals("mmHg", rollup.unit());
+  }
+
+  @Test
+  public void mergesBucketsInAnyOrder() {
+    var earlier = SensorRollup.of("heart rate", SensorRollup.HOUR, 0, "bpm", List.of(60.0))
+        .add(List.of(70.0), "bpm");
+    var later = SensorRollup.of("heart rate", SensorRollup.HOUR, 3_600_000, "bpm", List.of(90.0));
+
+    var merged = earlier.merge(later);
+    assertEquals(merged, later.merge(earlier));
+    assertEquals(0, merged.bucketStart());
+    assertEquals(3, merged.count());
+    assertEquals(List.of(60.0), merged.min());
+    assertEquals(List.of(90.0), merged.max());
+    assertEquals(List.of(220.0 / 3), merged.average());
+    // the values of the later bucket's last reading
+    assertEquals(List.of(90.0), merged.last());
+  }
+
+  @Test
+  public void keepsComponentsMissingFromOneSide() {
+    var merged = SensorRollup.of("blood pressure", SensorRollup.DAY, 0, "mmHg", List.of(120.0, 80.0))
+        .merge(SensorRollup.of("blood pressure", SensorRollup.DAY, 86_400_000, "mmHg", List.of(110.0)));
+
+    assertEquals(List.of(110.0, 80.0), merged.min());
+    assertEquals(List.of(230.0, 80.0), merged.sum());
+  }
+}
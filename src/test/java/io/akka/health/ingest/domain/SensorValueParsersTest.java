@@ -0,0 +1,74 @@
+package io.akka.health.ingest.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SensorValueParsersTest {
+
+  private static SensorValueParsers.ParsedValue parse(String description, String raw) {
+    return SensorValueParsers.parserFor(description).parse(raw);
+  }
+
+  @Test
+  public void normalizesDescriptions() {
+    assertEquals("heart rate", SensorValueParsers.normalizeDescription(" Heart-Rate "));
+    assertEquals("blood pressure", SensorValueParsers.normalizeDescription("blood_pressure"));
+    assertEquals("", SensorValueParsers.normalizeDescription(null));
+  }
+
+  @Test
+  public void usesTheDefaultUnitOfTheSensor() {
+    assertEquals(new SensorValueParsers.ParsedValue(List.of(72.0), "bpm"), parse("heart-rate", "72"));
+    assertEquals(new SensorValueParsers.ParsedValue(List.of(37.2), "°C"), parse("temperature", "37,2"));
+    assertEquals(new SensorValueParsers.ParsedValue(List.of(98.0), "%"), parse("SpO2", "98"));
+  }
+
+  @Test
+  public void prefersTheUnitInTheValue() {
+    // the README example: a Fahrenheit reading of a sensor whose default is Celsius
+    assertEquals(new SensorValueParsers.ParsedValue(List.of(98.6), "°F"), parse("temperature", "98.6°F"));
+    assertEquals(new SensorValueParsers.ParsedValue(List.of(154.0), "lbs"), parse("weight", "154 lbs"));
+  }
+
+  @Test
+  public void parsesAllNumbersOfUnknownSensors() {
+    assertEquals(new SensorValueParsers.ParsedValue(List.of(120.0, 80.0), "mmHg"), parse("cuff", "120/80 mmHg"));
+    assertEquals(new SensorValueParsers.ParsedValue(List.of(-3.5), "dB"), parse("noise", "-3.5 dB"));
+    // no unit in the value and no default for the sensor
+    assertEquals(new SensorValueParsers.ParsedValue(List.of(5.0), null), parse("mood", "5"));
+    assertEquals(new SensorValueParsers.ParsedValue(List.of(), null), parse("mood", "good"));
+  }
+
+  @Test
+  public void normalizesAReading() {
+    var receivedAt = Instant.parse("2025-04-26T08:00:00Z");
+    var reading = SensorValueParsers.normalize(
+        new SensorData("alice", "cuff", "blood-pressure", "120/80", null, null, null), receivedAt);
+
+    assertEquals(List.of(120.0, 80.0), reading.values());
+    assertEquals("mmHg", reading.unit());
+    assertEquals("120/80", reading.value());
+    assertEquals(receivedAt.toEpochMilli(), reading.timestamp());
+  }
+
+  @Test
+  public void keepsValuesAndUnitsThatWereSent() {
+    var sent = new SensorData("alice", "scale", "weight", "70 kg", List.of(70.1), "kg", 10L);
+    assertEquals(sent, SensorValueParsers.normalize(sent, Instant.now()));
+
+    // a unit sent alongside the raw value wins over the one in the value
+    var withUnit = SensorValueParsers.normalize(
+        new SensorData("alice", "watch", "temperature", "98.6", null, "°F", 10L), Instant.now());
+    assertEquals("°F", withUnit.unit());
+
+    var withoutValue = SensorValueParsers.normalize(
+        new SensorData("alice", "watch", "temperature", null, null, null, 10L), Instant.now());
+    assertEquals(List.of(), withoutValue.values());
+    assertNull(withoutValue.unit());
+  }
+}